@@ -0,0 +1,595 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+
+import components.map.Map;
+import components.map.Map2;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as a hash table using {@code Map}s for the buckets,
+ * as in {@code Map4}, with the buckets guarded by a fixed set of striped locks
+ * so that kernel methods, {@code replaceValue}, and {@code merge} may be
+ * called from many threads at once. The standard methods ({@code clear},
+ * {@code newInstance}, {@code transferFrom}) must not race with any other
+ * method.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @mathdefinitions <pre>
+ * SPREAD(
+ *   h: integer
+ *  ): integer is
+ *  [h with its high 16 bits XORed into its low 16 bits]
+ * </pre>
+ * @convention <pre>
+ * [|$this.hashTable| is a power of 2]  and
+ * [|$this.locks| is a power of 2]  and
+ * |$this.locks| <= |$this.hashTable|  and
+ * for all i: integer, pf: PARTIAL_FUNCTION, x: K
+ *     where (0 <= i  and  i < |$this.hashTable|  and
+ *            <pf> = $this.hashTable[i, i+1)  and
+ *            x is in DOMAIN(pf))
+ *   (SPREAD([computed result of x.hashCode()]) mod |$this.hashTable| = i)  and
+ * [bucket i is only read or changed while holding
+ *  $this.locks[i mod |$this.locks|]]  and
+ * [$this.hashTable is only replaced while holding all of $this.locks]  and
+ * $this.size = sum i: integer, pf: PARTIAL_FUNCTION
+ *     where (0 <= i  and  i < |$this.hashTable|  and
+ *            <pf> = $this.hashTable[i, i+1))
+ *   (|pf|)
+ * </pre>
+ * @correspondence <pre>
+ * this = union i: integer, pf: PARTIAL_FUNCTION
+ *            where (0 <= i  and  i < |$this.hashTable|  and
+ *                   <pf> = $this.hashTable[i, i+1))
+ *          (pf)
+ * </pre>
+ *
+ * @author Sean-Paul Billups, Michael Hu
+ *
+ */
+public class ConcurrentMap4<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default size of hash table; must be a power of 2.
+     */
+    private static final int DEFAULT_HASH_TABLE_SIZE = 128;
+
+    /**
+     * Default number of lock stripes; must be a power of 2.
+     */
+    private static final int DEFAULT_STRIPES = 16;
+
+    /**
+     * Load factor above which the hash table doubles.
+     */
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    /**
+     * Buckets for hashing.
+     */
+    private volatile Map<K, V>[] hashTable;
+
+    /**
+     * Locks guarding the buckets; bucket i is guarded by lock i mod
+     * |locks|.
+     */
+    private ReentrantLock[] locks;
+
+    /**
+     * Total size of abstract {@code this}.
+     */
+    private AtomicInteger size;
+
+    /**
+     * Returns {@code h} with its high bits folded into its low bits.
+     *
+     * @param h
+     *            the hash code
+     * @return SPREAD(h), which is non-negative
+     * @ensures spread = SPREAD(h) mod 2^31
+     */
+    private static int spread(int h) {
+        return (h ^ (h >>> 16)) & Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the smallest power of 2 that is at least {@code n}.
+     *
+     * @param n
+     *            the lower bound
+     * @return the smallest power of 2 >= n
+     * @requires 0 < n <= 2^30
+     * @ensures <pre>
+     * n <= powerOfTwoAtLeast  and  [powerOfTwoAtLeast is a power of 2]  and
+     * powerOfTwoAtLeast < 2 * n
+     * </pre>
+     */
+    private static int powerOfTwoAtLeast(int n) {
+        assert n > 0 : "Violation of: n > 0";
+
+        int p = 1;
+        while (p < n) {
+            p *= 2;
+        }
+        return p;
+    }
+
+    /**
+     * Returns a new array of {@code n} empty buckets.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     * @param n
+     *            the number of buckets
+     * @return the new buckets
+     * @requires n > 0
+     * @ensures |newTable| = n  and  [every entry of newTable is {}]
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> Map<K, V>[] newTable(int n) {
+        Map<K, V>[] table = new Map[n];
+        for (int i = 0; i < n; i++) {
+            table[i] = new Map2<K, V>();
+        }
+        return table;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param hashTableSize
+     *            the size of the hash table
+     * @param stripes
+     *            the number of locks
+     * @requires <pre>
+     * [hashTableSize and stripes are powers of 2]  and
+     * 0 < stripes <= hashTableSize
+     * </pre>
+     * @ensures <pre>
+     * |$this.hashTable| = hashTableSize  and  |$this.locks| = stripes  and
+     * this = {}
+     * </pre>
+     */
+    private void createNewRep(int hashTableSize, int stripes) {
+        this.hashTable = newTable(hashTableSize);
+        this.locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.locks[i] = new ReentrantLock();
+        }
+        this.size = new AtomicInteger(0);
+    }
+
+    /**
+     * Returns the lock guarding the bucket that keys with (spread) hash code
+     * {@code h} belong in. Since |$this.locks| divides |$this.hashTable|, this
+     * does not depend on the current table size.
+     *
+     * @param h
+     *            the spread hash code
+     * @return the lock for h
+     * @ensures lockFor = $this.locks[h mod |$this.locks|]
+     */
+    private ReentrantLock lockFor(int h) {
+        return this.locks[h & (this.locks.length - 1)];
+    }
+
+    /**
+     * Returns the bucket that keys with (spread) hash code {@code h} belong
+     * in.
+     *
+     * @param h
+     *            the spread hash code
+     * @return the bucket for h
+     * @requires [the current thread holds lockFor(h)]
+     * @ensures bucketFor = $this.hashTable[h mod |$this.hashTable|]
+     */
+    private Map<K, V> bucketFor(int h) {
+        Map<K, V>[] table = this.hashTable;
+        return table[h & (table.length - 1)];
+    }
+
+    /**
+     * Doubles the hash table if the load factor has passed
+     * {@code MAX_LOAD_FACTOR}, holding every lock while it does so. The pairs
+     * are copied into new buckets and the old buckets are left as they were,
+     * never to change again, so an iterator still walking the old table sees
+     * every pair it would have seen without the growth.
+     *
+     * @updates $this.hashTable
+     * @ensures this = #this
+     */
+    private void growIfNeeded() {
+        if (this.size.get() > MAX_LOAD_FACTOR * this.hashTable.length) {
+            // Takes the locks in index order so that two growers cannot deadlock
+            for (ReentrantLock lock : this.locks) {
+                lock.lock();
+            }
+            try {
+                Map<K, V>[] oldTable = this.hashTable;
+                if (this.size.get() > MAX_LOAD_FACTOR * oldTable.length) {
+                    Map<K, V>[] table = newTable(2 * oldTable.length);
+                    for (Map<K, V> bucket : oldTable) {
+                        for (Pair<K, V> p : bucket) {
+                            int h = spread(p.key().hashCode());
+                            table[h & (table.length - 1)].add(p.key(), p.value());
+                        }
+                    }
+                    this.hashTable = table;
+                }
+            } finally {
+                for (ReentrantLock lock : this.locks) {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public ConcurrentMap4() {
+        this(DEFAULT_HASH_TABLE_SIZE, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Constructor resulting in a hash table of at least {@code hashTableSize}
+     * buckets guarded by at least {@code stripes} locks, both rounded up to
+     * powers of 2.
+     *
+     * @param hashTableSize
+     *            minimum initial size of hash table
+     * @param stripes
+     *            minimum number of locks
+     * @requires 0 < stripes <= hashTableSize <= 2^30
+     * @ensures this = {}
+     */
+    public ConcurrentMap4(int hashTableSize, int stripes) {
+        assert 0 < stripes : "Violation of: 0 < stripes";
+        assert stripes <= hashTableSize : "Violation of: stripes <= hashTableSize";
+
+        this.createNewRep(powerOfTwoAtLeast(hashTableSize), powerOfTwoAtLeast(stripes));
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(DEFAULT_HASH_TABLE_SIZE, DEFAULT_STRIPES);
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof ConcurrentMap4<?, ?>
+                : "" + "Violation of: source is of dynamic type ConcurrentMap4<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * ConcurrentMap4<?,?>, and the ?,? must be K,V or the call would not
+         * have compiled.
+         */
+        ConcurrentMap4<K, V> localSource = (ConcurrentMap4<K, V>) source;
+        this.hashTable = localSource.hashTable;
+        this.locks = localSource.locks;
+        this.size = localSource.size;
+        localSource.createNewRep(DEFAULT_HASH_TABLE_SIZE, DEFAULT_STRIPES);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+
+        int h = spread(key.hashCode());
+        ReentrantLock lock = this.lockFor(h);
+        lock.lock();
+        try {
+            Map<K, V> bucket = this.bucketFor(h);
+            assert !bucket.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+            bucket.add(key, value);
+            this.size.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+
+        this.growIfNeeded();
+    }
+
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        int h = spread(key.hashCode());
+        ReentrantLock lock = this.lockFor(h);
+        lock.lock();
+        try {
+            Map<K, V> bucket = this.bucketFor(h);
+            assert bucket.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+            Pair<K, V> removed = bucket.remove(key);
+            this.size.decrementAndGet();
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        /*
+         * Tries each stripe in turn; within a stripe the table cannot be
+         * replaced, so its buckets can be searched safely.
+         */
+        for (int s = 0; s < this.locks.length; s++) {
+            ReentrantLock lock = this.locks[s];
+            lock.lock();
+            try {
+                Map<K, V>[] table = this.hashTable;
+                for (int i = s; i < table.length; i += this.locks.length) {
+                    if (table[i].size() > 0) {
+                        Pair<K, V> removed = table[i].removeAny();
+                        this.size.decrementAndGet();
+                        return removed;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Only reachable if other threads emptied this during the search
+        throw new AssertionError("Violation of: this /= empty_set");
+    }
+
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        int h = spread(key.hashCode());
+        ReentrantLock lock = this.lockFor(h);
+        lock.lock();
+        try {
+            Map<K, V> bucket = this.bucketFor(h);
+            assert bucket.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+            return bucket.value(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        int h = spread(key.hashCode());
+        ReentrantLock lock = this.lockFor(h);
+        lock.lock();
+        try {
+            return this.bucketFor(h).hasKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public final int size() {
+        return this.size.get();
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new ConcurrentMap4Iterator();
+    }
+
+    /*
+     * Atomic secondary methods -----------------------------------------------
+     */
+
+    /**
+     * Replaces the value associated with {@code key} by {@code value}, and
+     * returns the old value, as one atomic step.
+     *
+     * @param key
+     *            the key whose associated value is replaced
+     * @param value
+     *            the new value
+     * @return the old value
+     */
+    @Override
+    public final V replaceValue(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+
+        int h = spread(key.hashCode());
+        ReentrantLock lock = this.lockFor(h);
+        lock.lock();
+        try {
+            Map<K, V> bucket = this.bucketFor(h);
+            assert bucket.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+            return bucket.replaceValue(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds {@code (key, value)} to {@code this} if {@code key} is not in
+     * {@code this}; otherwise replaces the value associated with {@code key}
+     * by {@code remapping.apply(oldValue, value)}. Done as one atomic step, so
+     * concurrent word counters can each call
+     * {@code merge(word, 1, Integer::sum)} without losing increments.
+     *
+     * @param key
+     *            the key to add or update
+     * @param value
+     *            the value to add, or to combine with the old value
+     * @param remapping
+     *            the function combining the old value with {@code value}; it
+     *            runs while a lock is held, so it should be short
+     * @return the value now associated with key
+     * @aliases reference returned by {@code merge}
+     * @updates this
+     * @requires [remapping.apply never returns null]
+     * @ensures <pre>
+     * (key, merge) is in this  and
+     * if key is in DOMAIN(#this) then
+     *   this = (#this \ {(key, #this(key))}) union
+     *            {(key, remapping.apply(#this(key), value))}
+     * else
+     *   this = #this union {(key, value)}
+     * </pre>
+     */
+    public final V merge(K key, V value, BinaryOperator<V> remapping) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert remapping != null : "Violation of: remapping is not null";
+
+        int h = spread(key.hashCode());
+        ReentrantLock lock = this.lockFor(h);
+        boolean added = false;
+        V result = value;
+        lock.lock();
+        try {
+            Map<K, V> bucket = this.bucketFor(h);
+            if (bucket.hasKey(key)) {
+                result = remapping.apply(bucket.value(key), value);
+                bucket.replaceValue(key, result);
+            } else {
+                bucket.add(key, value);
+                this.size.incrementAndGet();
+                added = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (added) {
+            this.growIfNeeded();
+        }
+        return result;
+    }
+
+    /**
+     * Weakly consistent implementation of {@code Iterator} interface for
+     * {@code ConcurrentMap4}: it copies one bucket at a time under that
+     * bucket's lock, so it never fails because of concurrent changes, and
+     * reports each pair that is present for the whole iteration exactly once.
+     * If the table grows meanwhile, it goes on through the old table, whose
+     * buckets then hold the pairs as they were at the growth.
+     */
+    private final class ConcurrentMap4Iterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Table being iterated over.
+         */
+        private final Map<K, V>[] table;
+
+        /**
+         * Next bucket to copy.
+         */
+        private int nextBucket;
+
+        /**
+         * Copy of the pairs of the current bucket not yet returned.
+         */
+        private final List<Pair<K, V>> pending;
+
+        /**
+         * Index of the next pair of {@code pending} to return.
+         */
+        private int pendingIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        ConcurrentMap4Iterator() {
+            this.table = ConcurrentMap4.this.hashTable;
+            this.nextBucket = 0;
+            this.pending = new ArrayList<>();
+            this.pendingIndex = 0;
+        }
+
+        /**
+         * Copies buckets until one with pairs is found or all are copied.
+         */
+        private void fill() {
+            while (this.pendingIndex == this.pending.size()
+                    && this.nextBucket < this.table.length) {
+                this.pending.clear();
+                this.pendingIndex = 0;
+                int i = this.nextBucket;
+                ReentrantLock lock = ConcurrentMap4.this.locks[i
+                        & (ConcurrentMap4.this.locks.length - 1)];
+                lock.lock();
+                try {
+                    for (Pair<K, V> p : this.table[i]) {
+                        this.pending.add(p);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                this.nextBucket++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            this.fill();
+            return this.pendingIndex < this.pending.size();
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Pair<K, V> next = this.pending.get(this.pendingIndex);
+            this.pendingIndex++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,71 @@
+import components.map.Map.Pair;
+
+/**
+ * Immutable (key, value) pair returned by the {@code Map} implementations in
+ * this project whose representations do not hold {@code Pair}s themselves.
+ * Two pairs are equal if their keys are equal and their values are equal.
+ *
+ * @param <K>
+ *            type of key
+ * @param <V>
+ *            type of value
+ *
+ * @author Sean-Paul Billups, Michael Hu
+ *
+ */
+final class ImmutablePair<K, V> implements Pair<K, V> {
+
+    /**
+     * The key.
+     */
+    private final K key;
+
+    /**
+     * The value.
+     */
+    private final V value;
+
+    /**
+     * Constructor from key and value.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     */
+    ImmutablePair(K key, V value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    @Override
+    public K key() {
+        return this.key;
+    }
+
+    @Override
+    public V value() {
+        return this.value;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        boolean equal = false;
+        if (obj instanceof Pair<?, ?>) {
+            Pair<?, ?> p = (Pair<?, ?>) obj;
+            equal = this.key.equals(p.key()) && this.value.equals(p.value());
+        }
+        return equal;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.key.hashCode() ^ this.value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "(" + this.key + "," + this.value + ")";
+    }
+
+}
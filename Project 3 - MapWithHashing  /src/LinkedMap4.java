@@ -0,0 +1,606 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as a hash table of chained entries that are also
+ * threaded, oldest first, on a doubly linked list, with implementations of
+ * primary methods. The list is in insertion order, or in access order (an
+ * entry moves to the end whenever it is added, looked up with {@code value},
+ * or has its value replaced), and gives the iteration order and the entry
+ * that {@code removeAny} removes: the eldest. With a maximum size, adding a
+ * pair to a full map evicts the eldest entry, so that an access-ordered
+ * {@code LinkedMap4} is an LRU cache.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @mathdefinitions <pre>
+ * BUCKET(
+ *   h: integer,
+ *   n: integer
+ *  ): integer is
+ *  [h with its high 16 bits XORed into its low 16 bits] mod n
+ *
+ * ORDER: string of Entry is
+ *  [the entries on the list from $this.header.after to
+ *   $this.header.before]
+ * </pre>
+ * @convention <pre>
+ * [|$this.hashTable| is a power of 2]  and
+ * [every entry in the chain at $this.hashTable[i] has
+ *  BUCKET(entry.hash, |$this.hashTable|) = i and
+ *  entry.hash = [computed result of entry.key.hashCode()]]  and
+ * [the entries in the chains are exactly the entries of ORDER]  and
+ * [the keys of the entries are distinct]  and
+ * [$this.header.after and $this.header.before of the entries form a
+ *  circular doubly linked list through $this.header]  and
+ * $this.size = |ORDER|  and
+ * $this.size <= MAX_LOAD_FACTOR * |$this.hashTable|  and
+ * $this.maxSize >= 0  and
+ * if $this.maxSize > 0 then $this.size <= $this.maxSize
+ * </pre>
+ * @correspondence <pre>
+ * this = {(k, v): (K, V)
+ *          where (there exists e: Entry
+ *                  (e is in elements(ORDER)  and
+ *                   e.key = k  and  e.value = v))}
+ * </pre>
+ *
+ * @author Michael Hu, Sean-Paul Billups
+ *
+ */
+public class LinkedMap4<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default size of hash table; must be a power of 2.
+     */
+    private static final int DEFAULT_HASH_TABLE_SIZE = 128;
+
+    /**
+     * Load factor above which the hash table doubles.
+     */
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    /**
+     * Chains of entries, one per bucket.
+     */
+    private Entry<K, V>[] hashTable;
+
+    /**
+     * Sentinel of the list of entries; {@code header.after} is the eldest
+     * entry and {@code header.before} the youngest.
+     */
+    private Entry<K, V> header;
+
+    /**
+     * Total size of abstract {@code this}.
+     */
+    private int size;
+
+    /**
+     * Whether lookups move an entry to the end of the list.
+     */
+    private boolean accessOrder;
+
+    /**
+     * Most entries {@code this} holds before evicting the eldest, or 0 for
+     * no limit.
+     */
+    private int maxSize;
+
+    /**
+     * Called with each evicted pair, or {@code null}.
+     */
+    private Consumer<Pair<K, V>> evictionListener;
+
+    /**
+     * Returns the bucket for hash code {@code h} in a table of size {@code n}.
+     *
+     * @param h
+     *            the hash code
+     * @param n
+     *            the size of the hash table
+     * @return BUCKET(h, n)
+     * @requires [n is a power of 2]
+     * @ensures bucketIndex = BUCKET(h, n)
+     */
+    private static int bucketIndex(int h, int n) {
+        return (h ^ (h >>> 16)) & (n - 1);
+    }
+
+    /**
+     * Returns the entry for {@code key}, or {@code null} if there is none.
+     *
+     * @param key
+     *            the key to look for
+     * @return the entry for key
+     */
+    private Entry<K, V> entry(K key) {
+        int h = key.hashCode();
+        Entry<K, V> e = this.hashTable[bucketIndex(h, this.hashTable.length)];
+        while (e != null && (e.hash != h || !e.key.equals(key))) {
+            e = e.next;
+        }
+        return e;
+    }
+
+    /**
+     * Links {@code e} in at the end of the list.
+     *
+     * @param e
+     *            the entry
+     * @updates $this.header
+     * @requires [e is not on the list]
+     * @ensures ORDER = #ORDER * <e>
+     */
+    private void linkLast(Entry<K, V> e) {
+        e.before = this.header.before;
+        e.after = this.header;
+        this.header.before.after = e;
+        this.header.before = e;
+    }
+
+    /**
+     * Unlinks {@code e} from the list.
+     *
+     * @param <K>
+     *            type of the entry's key
+     * @param <V>
+     *            type of the entry's value
+     * @param e
+     *            the entry
+     * @updates $this.header
+     * @requires [e is on the list]
+     * @ensures [ORDER = #ORDER without e]
+     */
+    private static <K, V> void unlink(Entry<K, V> e) {
+        e.before.after = e.after;
+        e.after.before = e.before;
+    }
+
+    /**
+     * Records an access to {@code e}, moving it to the end of the list in
+     * access order.
+     *
+     * @param e
+     *            the entry
+     * @updates $this.header
+     */
+    private void recordAccess(Entry<K, V> e) {
+        if (this.accessOrder && this.header.before != e) {
+            unlink(e);
+            this.linkLast(e);
+        }
+    }
+
+    /**
+     * Removes {@code e} from its chain and from the list.
+     *
+     * @param e
+     *            the entry
+     * @return the removed pair
+     * @updates this
+     * @requires [e is an entry of this]
+     * @ensures this = #this \ {(e.key, e.value)}
+     */
+    private Pair<K, V> removeEntry(Entry<K, V> e) {
+        int bucketNum = bucketIndex(e.hash, this.hashTable.length);
+        if (this.hashTable[bucketNum] == e) {
+            this.hashTable[bucketNum] = e.next;
+        } else {
+            Entry<K, V> previous = this.hashTable[bucketNum];
+            while (previous.next != e) {
+                previous = previous.next;
+            }
+            previous.next = e.next;
+        }
+        unlink(e);
+        this.size--;
+
+        return new ImmutablePair<>(e.key, e.value);
+    }
+
+    /**
+     * Doubles the hash table, keeping the list as it is.
+     *
+     * @updates $this.hashTable
+     * @ensures |$this.hashTable| = 2 * |#$this.hashTable|
+     */
+    @SuppressWarnings("unchecked")
+    private void grow() {
+        Entry<K, V>[] newHashTable = new Entry[2 * this.hashTable.length];
+
+        // Walks the list rather than the chains; it holds the same entries
+        for (Entry<K, V> e = this.header.after; e != this.header; e = e.after) {
+            int bucketNum = bucketIndex(e.hash, newHashTable.length);
+            e.next = newHashTable[bucketNum];
+            newHashTable[bucketNum] = e;
+        }
+        this.hashTable = newHashTable;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep() {
+        this.hashTable = new Entry[DEFAULT_HASH_TABLE_SIZE];
+        this.header = new Entry<>(0, null, null, null);
+        this.header.before = this.header;
+        this.header.after = this.header;
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor; insertion order, no maximum size.
+     */
+    public LinkedMap4() {
+        this(false, 0, null);
+    }
+
+    /**
+     * Constructor with order and no maximum size.
+     *
+     * @param accessOrder
+     *            whether lookups move an entry to the end of the order
+     */
+    public LinkedMap4(boolean accessOrder) {
+        this(accessOrder, 0, null);
+    }
+
+    /**
+     * Constructor with order, maximum size, and eviction listener.
+     *
+     * @param accessOrder
+     *            whether lookups move an entry to the end of the order
+     * @param maxSize
+     *            most entries before the eldest is evicted, or 0 for no limit
+     * @param evictionListener
+     *            called with each evicted pair, or {@code null}
+     * @requires maxSize >= 0
+     */
+    public LinkedMap4(boolean accessOrder, int maxSize,
+            Consumer<Pair<K, V>> evictionListener) {
+        assert maxSize >= 0 : "Violation of: maxSize >= 0";
+
+        this.accessOrder = accessOrder;
+        this.maxSize = maxSize;
+        this.evictionListener = evictionListener;
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The new map has the same order, maximum size, and eviction listener as
+     * {@code this}.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass()
+                    .getConstructor(boolean.class, int.class, Consumer.class)
+                    .newInstance(this.accessOrder, this.maxSize, this.evictionListener);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof LinkedMap4<?, ?>
+                : "" + "Violation of: source is of dynamic type LinkedMap4<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * LinkedMap4<?,?>, and the ?,? must be K,V or the call would not have
+         * compiled.
+         */
+        LinkedMap4<K, V> localSource = (LinkedMap4<K, V>) source;
+        this.hashTable = localSource.hashTable;
+        this.header = localSource.header;
+        this.size = localSource.size;
+        this.accessOrder = localSource.accessOrder;
+        this.maxSize = localSource.maxSize;
+        this.evictionListener = localSource.evictionListener;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * If {@code this} has a maximum size and is full, the eldest pair is
+     * removed first and passed to the eviction listener.
+     */
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        // Evicts the eldest entry to make room
+        if (this.maxSize > 0 && this.size == this.maxSize) {
+            Pair<K, V> evicted = this.removeEntry(this.header.after);
+            if (this.evictionListener != null) {
+                this.evictionListener.accept(evicted);
+            }
+        }
+
+        int h = key.hashCode();
+        int bucketNum = bucketIndex(h, this.hashTable.length);
+        Entry<K, V> e = new Entry<>(h, key, value, this.hashTable[bucketNum]);
+        this.hashTable[bucketNum] = e;
+        this.linkLast(e);
+        this.size++;
+
+        if (this.size > MAX_LOAD_FACTOR * this.hashTable.length) {
+            this.grow();
+        }
+    }
+
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return this.removeEntry(this.entry(key));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The pair removed is the eldest: the first in iteration order.
+     */
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        return this.removeEntry(this.header.after);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * In access order, this moves {@code key} to the end of the order.
+     */
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        Entry<K, V> e = this.entry(key);
+        this.recordAccess(e);
+        return e.value;
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.entry(key) != null;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new LinkedMap4Iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The value is replaced in place: in insertion order {@code key} keeps
+     * its position, and in access order it moves to the end.
+     */
+    @Override
+    public final V replaceValue(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        Entry<K, V> e = this.entry(key);
+        V old = e.value;
+        e.value = value;
+        this.recordAccess(e);
+
+        return old;
+    }
+
+    /**
+     * Reports the eldest pair in {@code this}: the one {@code removeAny}
+     * would remove.
+     *
+     * @return the eldest pair
+     * @requires this /= empty_set
+     * @ensures eldest is in this
+     */
+    public final Pair<K, V> eldest() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        Entry<K, V> e = this.header.after;
+        return new ImmutablePair<>(e.key, e.value);
+    }
+
+    /**
+     * Entry of a {@code LinkedMap4}: a link in its bucket's chain and in the
+     * list.
+     */
+    private static final class Entry<K, V> {
+
+        /**
+         * Cached {@code key.hashCode()}.
+         */
+        private final int hash;
+
+        /**
+         * The key.
+         */
+        private final K key;
+
+        /**
+         * The value.
+         */
+        private V value;
+
+        /**
+         * Next entry in the same bucket.
+         */
+        private Entry<K, V> next;
+
+        /**
+         * Previous (older) entry on the list.
+         */
+        private Entry<K, V> before;
+
+        /**
+         * Next (younger) entry on the list.
+         */
+        private Entry<K, V> after;
+
+        /**
+         * Constructor from hash, key, value, and next entry in the bucket.
+         *
+         * @param hash
+         *            the hash code of key
+         * @param key
+         *            the key
+         * @param value
+         *            the value
+         * @param next
+         *            the next entry in the bucket
+         */
+        Entry(int hash, K key, V value, Entry<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code LinkedMap4},
+     * eldest pair first. In access order, {@code value} and
+     * {@code replaceValue} move entries to the end of the list, so that
+     * reading values while iterating would have the list run on ahead of the
+     * iterator; the iterator walks a snapshot of the order there instead.
+     */
+    private final class LinkedMap4Iterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Entries in the order when the iterator was made, in access order
+         * only; null in insertion order.
+         */
+        private Entry<K, V>[] snapshot;
+
+        /**
+         * Position in {@code snapshot} of the entry {@code next} returns next.
+         */
+        private int position;
+
+        /**
+         * Entry that {@code next} returns next, or the header when done, in
+         * insertion order.
+         */
+        private Entry<K, V> current;
+
+        /**
+         * No-argument constructor.
+         */
+        @SuppressWarnings("unchecked")
+        LinkedMap4Iterator() {
+            this.current = LinkedMap4.this.header.after;
+            if (LinkedMap4.this.accessOrder) {
+                this.snapshot = new Entry[LinkedMap4.this.size];
+                for (int i = 0; i < this.snapshot.length; i++) {
+                    this.snapshot[i] = this.current;
+                    this.current = this.current.after;
+                }
+                this.position = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext;
+            if (this.snapshot != null) {
+                hasNext = this.position < this.snapshot.length;
+            } else {
+                hasNext = this.current != LinkedMap4.this.header;
+            }
+            return hasNext;
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> e;
+            if (this.snapshot != null) {
+                e = this.snapshot[this.position];
+                this.position++;
+            } else {
+                e = this.current;
+                this.current = e.after;
+            }
+            return new ImmutablePair<>(e.key, e.value);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
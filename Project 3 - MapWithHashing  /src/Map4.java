@@ -1,32 +1,58 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 
 import components.map.Map;
-import components.map.Map2;
 import components.map.MapSecondary;
 
 /**
  * {@code Map} represented as a hash table using {@code Map}s for the buckets,
- * with implementations of primary methods.
+ * with implementations of primary methods. The hash table is rehashed into a
+ * larger or smaller one whenever the load factor crosses the thresholds given
+ * at construction.
  *
  * @param <K>
  *            type of {@code Map} domain (key) entries
  * @param <V>
  *            type of {@code Map} range (associated value) entries
+ * @mathdefinitions <pre>
+ * BUCKET(
+ *   h: integer,
+ *   n: integer
+ *  ): integer is
+ *  if $this.powerOfTwo then
+ *    [h with its high 16 bits XORed into its low 16 bits] mod n
+ *  else
+ *    h mod n
+ * </pre>
  * @convention <pre>
  * |$this.hashTable| > 0  and
  * for all i: integer, pf: PARTIAL_FUNCTION, x: K
  *     where (0 <= i  and  i < |$this.hashTable|  and
  *            <pf> = $this.hashTable[i, i+1)  and
  *            x is in DOMAIN(pf))
- *   ([computed result of x.hashCode()] mod |$this.hashTable| = i))  and
+ *   (BUCKET([computed result of x.hashCode()], |$this.hashTable|) = i))  and
  * for all i: integer
  *     where (0 <= i  and  i < |$this.hashTable|)
- *   ([entry at position i in $this.hashTable is not null])  and
+ *   ([entry at position i in $this.hashTable is not null]  and
+ *    [entry at position i in $this.hashTable is a ChainBucket, or a TreeBucket
+ *     only if $this.treeBuckets])  and
  * $this.size = sum i: integer, pf: PARTIAL_FUNCTION
  *     where (0 <= i  and  i < |$this.hashTable|  and
  *            <pf> = $this.hashTable[i, i+1))
- *   (|pf|)
+ *   (|pf|)  and
+ * 0 < $this.minHashTableSize <= |$this.hashTable|  and
+ * 0 <= $this.minLoadFactor  and
+ * 2 * $this.minLoadFactor < $this.maxLoadFactor  and
+ * $this.size <= $this.maxLoadFactor * |$this.hashTable|  and
+ * if $this.powerOfTwo then [|$this.hashTable| is a power of 2]  and
+ * 0 <= $this.removeAnyCursor < |$this.hashTable|
  * </pre>
  * @correspondence <pre>
  * this = union i: integer, pf: PARTIAL_FUNCTION
@@ -51,16 +77,105 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     private static final int DEFAULT_HASH_TABLE_SIZE = 101;
 
+    /**
+     * Default load factor above which the hash table grows.
+     */
+    private static final double DEFAULT_MAX_LOAD_FACTOR = 0.75;
+
+    /**
+     * Default load factor below which the hash table shrinks.
+     */
+    private static final double DEFAULT_MIN_LOAD_FACTOR = 0.25;
+
+    /**
+     * Bucket length above which a bucket becomes a {@code TreeBucket}, when
+     * tree buckets are enabled.
+     */
+    private static final int TREEIFY_THRESHOLD = 8;
+
+    /**
+     * Bucket length at or below which a {@code TreeBucket} goes back to being
+     * a {@code ChainBucket}; less than {@code TREEIFY_THRESHOLD} so that a bucket
+     * hovering around the threshold is not converted back and forth.
+     */
+    private static final int UNTREEIFY_THRESHOLD = 6;
+
     /**
      * Buckets for hashing.
      */
-    private Map<K, V>[] hashTable;
+    private Bucket<K, V>[] hashTable;
 
     /**
      * Total size of abstract {@code this}.
      */
     private int size;
 
+    /**
+     * Size of the hash table {@code this} was constructed with; the table
+     * never shrinks below it.
+     */
+    private int minHashTableSize;
+
+    /**
+     * Load factor ({@code size / |hashTable|}) above which the table grows.
+     */
+    private double maxLoadFactor;
+
+    /**
+     * Load factor below which the table shrinks.
+     */
+    private double minLoadFactor;
+
+    /**
+     * Whether the hash table size is kept a power of 2, with buckets selected
+     * by masking a spread hash code instead of by {@code mod}.
+     */
+    private boolean powerOfTwo;
+
+    /**
+     * Bucket at which {@code removeAny} resumes its search for a non-empty
+     * bucket.
+     */
+    private int removeAnyCursor;
+
+    /**
+     * Whether lookups are being counted for {@code statistics}.
+     */
+    private boolean statisticsEnabled;
+
+    /**
+     * Number of lookups ({@code hasKey}, {@code value}, and the fused lookup
+     * methods) counted since statistics were enabled.
+     */
+    private long lookups;
+
+    /**
+     * Total length of the buckets searched by the counted lookups.
+     */
+    private long probes;
+
+    /**
+     * Receiver of periodic statistics reports, or {@code null} for none.
+     */
+    private Consumer<String> statisticsReporter;
+
+    /**
+     * Number of lookups between statistics reports.
+     */
+    private long reportInterval;
+
+    /**
+     * Whether long buckets of mutually comparable keys are kept as
+     * {@code TreeBucket}s.
+     */
+    private boolean treeBuckets;
+
+    /**
+     * Number of changes made to {@code this} so far, so that iteration can
+     * detect a change made while it is in progress.
+     */
+    private int modCount;
+
     /**
      * Computes {@code a} mod {@code b} as % should have been defined to work.
      *
@@ -78,17 +193,225 @@ public class Map4<K, V> extends MapSecondary<K, V> {
     private static int mod(int a, int b) {
         assert b > 0 : "Violation of: b > 0";
 
-        // Initializes a variable for a
-        int c = a;
-
-        // Increments c by b until c is non-negative
-        while (c < 0) {
+        // Shifts a negative remainder up into [0, b), in constant time
+        int c = a % b;
+        if (c < 0) {
             c += b;
         }
 
-        // Returns c modulo b
-        return c % b;
+        // Returns c, which is a modulo b
+        return c;
+
+    }
+
+    /**
+     * Returns the smallest power of 2 that is at least {@code n}.
+     *
+     * @param n
+     *            the lower bound
+     * @return the smallest power of 2 >= n
+     * @requires 0 < n <= 2^30
+     * @ensures <pre>
+     * n <= powerOfTwoAtLeast  and  [powerOfTwoAtLeast is a power of 2]  and
+     * powerOfTwoAtLeast < 2 * n
+     * </pre>
+     */
+    private static int powerOfTwoAtLeast(int n) {
+        assert n > 0 : "Violation of: n > 0";
+
+        int p = 1;
+        while (p < n) {
+            p *= 2;
+        }
+        return p;
+    }
+
+    /**
+     * Returns the bucket that a key with hash code {@code hash} belongs in, in
+     * a hash table of size {@code hashTableSize}.
+     *
+     * @param hash
+     *            the hash code of the key
+     * @param hashTableSize
+     *            the size of the hash table
+     * @return the bucket number
+     * @requires <pre>
+     * hashTableSize > 0  and
+     * if $this.powerOfTwo then [hashTableSize is a power of 2]
+     * </pre>
+     * @ensures bucketIndex = BUCKET(hash, hashTableSize)
+     */
+    private int bucketIndex(int hash, int hashTableSize) {
+        int bucketNum;
+        if (this.powerOfTwo) {
+            /*
+             * Only the low bits select the bucket, so the high bits are folded
+             * in first (as java.util.HashMap does).
+             */
+            bucketNum = (hash ^ (hash >>> 16)) & (hashTableSize - 1);
+        } else {
+            bucketNum = mod(hash, hashTableSize);
+        }
+        return bucketNum;
+    }
+
+    /**
+     * Returns the number of the bucket {@code key} belongs in, counting the
+     * lookup when statistics are enabled.
+     *
+     * @param key
+     *            the key being looked up
+     * @return the bucket number for key
+     * @ensures <pre>
+     * lookupBucketIndex = BUCKET([computed result of key.hashCode()],
+     *                            |$this.hashTable|)
+     * </pre>
+     */
+    private int lookupBucketIndex(K key) {
+        int bucketNum = this.bucketIndex(key.hashCode(), this.hashTable.length);
+
+        if (this.statisticsEnabled) {
+            /*
+             * A ChainBucket is searched linearly and a TreeBucket by binary
+             * search, which bounds the keys each compares against.
+             */
+            int length = this.hashTable[bucketNum].size();
+            this.lookups++;
+            if (this.hashTable[bucketNum] instanceof TreeBucket<?, ?>) {
+                this.probes += Integer.SIZE - Integer.numberOfLeadingZeros(length);
+            } else {
+                this.probes += length;
+            }
+            if (this.statisticsReporter != null
+                    && this.lookups % this.reportInterval == 0) {
+                this.statisticsReporter.accept(this.statistics());
+            }
+        }
+
+        return bucketNum;
+    }
+
+    /**
+     * Reports whether {@code key} is in {@code this}, as {@code hasKey} does,
+     * but without counting a lookup, so that the precondition checks of the
+     * kernel methods leave the statistics as they would be without
+     * assertions.
+     *
+     * @param key
+     *            the key to look for
+     * @return true iff key is in DOMAIN(this)
+     * @ensures isInDomain = (key is in DOMAIN(this))
+     */
+    private boolean isInDomain(K key) {
+        int bucketNum = this.bucketIndex(key.hashCode(), this.hashTable.length);
+        return this.hashTable[bucketNum].hasKey(key);
+    }
+
+    /**
+     * Reports whether {@code bucket} should become a {@code TreeBucket}: tree
+     * buckets are enabled, it is longer than {@code TREEIFY_THRESHOLD}, and all
+     * its keys are {@code Comparable} and of the same class.
+     *
+     * @param bucket
+     *            the bucket
+     * @return whether to treeify bucket
+     */
+    private boolean shouldTreeify(Bucket<K, V> bucket) {
+        boolean treeify = this.treeBuckets && bucket.size() > TREEIFY_THRESHOLD
+                && !(bucket instanceof TreeBucket<?, ?>);
+        if (treeify) {
+            Class<?> keyClass = null;
+            for (Pair<K, V> p : bucket) {
+                if (keyClass == null) {
+                    keyClass = p.key().getClass();
+                }
+                treeify = treeify && p.key() instanceof Comparable<?>
+                        && p.key().getClass() == keyClass;
+            }
+        }
+        return treeify;
+    }
+
+    /**
+     * Moves every entry of {@code bucket} into {@code newBucket} and returns
+     * {@code newBucket}.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     * @param bucket
+     *            the bucket to drain
+     * @param newBucket
+     *            the bucket to fill
+     * @return newBucket
+     * @updates bucket, newBucket
+     * @requires newBucket = {}
+     * @ensures newBucket = #bucket  and  bucket = {}
+     */
+    private static <K, V> Bucket<K, V> moveAll(Bucket<K, V> bucket,
+            Bucket<K, V> newBucket) {
+        while (bucket.size() > 0) {
+            Pair<K, V> p = bucket.removeAny();
+            newBucket.add(p.key(), p.value());
+        }
+        return newBucket;
+    }
+
+    /**
+     * Adds {@code (key, value)} to bucket {@code bucketNum}, switching the
+     * bucket between {@code ChainBucket} and {@code TreeBucket} as needed. Does not
+     * change {@code $this.size}.
+     *
+     * @param bucketNum
+     *            the bucket number of key
+     * @param key
+     *            the key to add
+     * @param value
+     *            the value to add
+     * @updates $this.hashTable
+     * @requires <pre>
+     * bucketNum = BUCKET([computed result of key.hashCode()],
+     *                    |$this.hashTable|)  and
+     * key is not in DOMAIN(this)
+     * </pre>
+     * @ensures this = #this union {(key, value)}
+     */
+    private void addToBucket(int bucketNum, K key, V value) {
+        Bucket<K, V> bucket = this.hashTable[bucketNum];
+
+        // A key of another class cannot be ordered against the tree's keys
+        if (bucket instanceof TreeBucket<?, ?>
+                && ((TreeBucket<K, V>) bucket).keyClass != key.getClass()) {
+            bucket = moveAll(bucket, new ChainBucket<K, V>());
+            this.hashTable[bucketNum] = bucket;
+        }
+
+        bucket.add(key, value);
 
+        if (this.shouldTreeify(bucket)) {
+            this.hashTable[bucketNum] = moveAll(bucket,
+                    new TreeBucket<K, V>(key.getClass()));
+        }
+    }
+
+    /**
+     * Turns bucket {@code bucketNum} back into a {@code ChainBucket} if it is a
+     * {@code TreeBucket} that has shrunk to {@code UNTREEIFY_THRESHOLD} or if
+     * tree buckets are disabled.
+     *
+     * @param bucketNum
+     *            the bucket number
+     * @updates $this.hashTable
+     * @requires 0 <= bucketNum < |$this.hashTable|
+     * @ensures this = #this
+     */
+    private void untreeifyIfNeeded(int bucketNum) {
+        Bucket<K, V> bucket = this.hashTable[bucketNum];
+        if (bucket instanceof TreeBucket<?, ?>
+                && (!this.treeBuckets || bucket.size() <= UNTREEIFY_THRESHOLD)) {
+            this.hashTable[bucketNum] = moveAll(bucket, new ChainBucket<K, V>());
+        }
     }
 
     /**
@@ -108,20 +431,96 @@ public class Map4<K, V> extends MapSecondary<K, V> {
     @SuppressWarnings("unchecked")
     private void createNewRep(int hashTableSize) {
         /*
-         * With "new Map<K, V>[...]" in place of "new Map[...]" it does not
+         * With "new Bucket<K, V>[...]" in place of "new Bucket[...]" it does not
          * compile; as shown, it results in a warning about an unchecked
          * conversion, though it cannot fail.
          */
-        this.hashTable = new Map[hashTableSize];
+        this.hashTable = new Bucket[hashTableSize];
 
         // Initializes the value for size;
         this.size = 0;
 
+        // Starts removeAny's search at the last bucket
+        this.removeAnyCursor = hashTableSize - 1;
+        this.modCount++;
+
         // Creates a new Map for each array element
         for (int i = 0; i < hashTableSize; i++) {
-            this.hashTable[i] = new Map2<K, V>();
+            this.hashTable[i] = new ChainBucket<K, V>();
+        }
+
+    }
+
+    /**
+     * Moves every entry of {@code this} into a new hash table of size
+     * {@code newHashTableSize}.
+     *
+     * @param newHashTableSize
+     *            the size of the new hash table
+     * @updates $this.hashTable
+     * @requires newHashTableSize > 0
+     * @ensures <pre>
+     * |$this.hashTable| = newHashTableSize  and
+     * this = #this  and  $this.size = #$this.size
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void rehash(int newHashTableSize) {
+        assert newHashTableSize > 0 : "Violation of: newHashTableSize > 0";
+
+        Bucket<K, V>[] oldTable = this.hashTable;
+        this.hashTable = new Bucket[newHashTableSize];
+        this.removeAnyCursor = newHashTableSize - 1;
+        this.modCount++;
+        for (int i = 0; i < newHashTableSize; i++) {
+            this.hashTable[i] = new ChainBucket<K, V>();
+        }
+
+        // Drains each old bucket into the bucket its keys now hash to
+        for (Bucket<K, V> bucket : oldTable) {
+            while (bucket.size() > 0) {
+                Pair<K, V> p = bucket.removeAny();
+                int bucketNum = this.bucketIndex(p.key().hashCode(), newHashTableSize);
+                this.addToBucket(bucketNum, p.key(), p.value());
+            }
+        }
+
+    }
+
+    /**
+     * Grows the hash table if the load factor has passed
+     * {@code $this.maxLoadFactor}.
+     *
+     * @updates $this.hashTable
+     * @ensures <pre>
+     * this = #this  and
+     * $this.size <= $this.maxLoadFactor * |$this.hashTable|
+     * </pre>
+     */
+    private void growIfNeeded() {
+        if (this.size > this.maxLoadFactor * this.hashTable.length) {
+            // Doubles the table, keeping its size odd unless it must be 2^k
+            int newHashTableSize = 2 * this.hashTable.length;
+            if (!this.powerOfTwo) {
+                newHashTableSize++;
+            }
+            this.rehash(newHashTableSize);
         }
+    }
 
+    /**
+     * Shrinks the hash table if the load factor has fallen below
+     * {@code $this.minLoadFactor}, but never below
+     * {@code $this.minHashTableSize}.
+     *
+     * @updates $this.hashTable
+     * @ensures this = #this
+     */
+    private void shrinkIfNeeded() {
+        if (this.hashTable.length > this.minHashTableSize
+                && this.size < this.minLoadFactor * this.hashTable.length) {
+            this.rehash(Math.max(this.minHashTableSize, this.hashTable.length / 2));
+        }
     }
 
     /*
@@ -133,7 +532,7 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     public Map4() {
 
-        this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+        this(DEFAULT_HASH_TABLE_SIZE);
 
     }
 
@@ -147,8 +546,72 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     public Map4(int hashTableSize) {
 
+        this(hashTableSize, DEFAULT_MAX_LOAD_FACTOR, DEFAULT_MIN_LOAD_FACTOR);
+
+    }
+
+    /**
+     * Constructor resulting in a hash table of initial size
+     * {@code hashTableSize} that doubles once the load factor passes
+     * {@code maxLoadFactor} and halves (down to {@code hashTableSize}) once it
+     * falls below {@code minLoadFactor}.
+     *
+     * @param hashTableSize
+     *            initial (and minimum) size of hash table
+     * @param maxLoadFactor
+     *            load factor above which the hash table grows
+     * @param minLoadFactor
+     *            load factor below which the hash table shrinks
+     * @requires <pre>
+     * hashTableSize > 0  and  0 <= minLoadFactor  and
+     * 2 * minLoadFactor < maxLoadFactor
+     * </pre>
+     * @ensures this = {}
+     */
+    public Map4(int hashTableSize, double maxLoadFactor, double minLoadFactor) {
+
+        this(hashTableSize, maxLoadFactor, minLoadFactor, false);
+
+    }
+
+    /**
+     * Constructor resulting in a hash table as for
+     * {@code Map4(hashTableSize, maxLoadFactor, minLoadFactor)}, except that if
+     * {@code powerOfTwo} then the hash table size is rounded up to a power of 2
+     * and buckets are selected by masking the spread hash code rather than by
+     * {@code mod}.
+     *
+     * @param hashTableSize
+     *            initial (and minimum) size of hash table
+     * @param maxLoadFactor
+     *            load factor above which the hash table grows
+     * @param minLoadFactor
+     *            load factor below which the hash table shrinks
+     * @param powerOfTwo
+     *            whether to keep the hash table size a power of 2
+     * @requires <pre>
+     * 0 < hashTableSize <= 2^30  and  0 <= minLoadFactor  and
+     * 2 * minLoadFactor < maxLoadFactor
+     * </pre>
+     * @ensures this = {}
+     */
+    public Map4(int hashTableSize, double maxLoadFactor, double minLoadFactor,
+            boolean powerOfTwo) {
+        assert hashTableSize > 0 : "Violation of: hashTableSize > 0";
+        assert 0 <= minLoadFactor : "Violation of: 0 <= minLoadFactor";
+        assert 2 * minLoadFactor < maxLoadFactor
+                : "Violation of: 2 * minLoadFactor < maxLoadFactor";
+
+        this.powerOfTwo = powerOfTwo;
+        this.minHashTableSize = hashTableSize;
+        if (powerOfTwo) {
+            this.minHashTableSize = powerOfTwoAtLeast(hashTableSize);
+        }
+        this.maxLoadFactor = maxLoadFactor;
+        this.minLoadFactor = minLoadFactor;
+
         // Creates an array with a given size
-        this.createNewRep(hashTableSize);
+        this.createNewRep(this.minHashTableSize);
 
     }
 
@@ -169,7 +632,7 @@ public class Map4<K, V> extends MapSecondary<K, V> {
 
     @Override
     public final void clear() {
-        this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+        this.createNewRep(this.minHashTableSize);
     }
 
     @Override
@@ -186,7 +649,14 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         Map4<K, V> localSource = (Map4<K, V>) source;
         this.hashTable = localSource.hashTable;
         this.size = localSource.size;
-        localSource.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+        this.minHashTableSize = localSource.minHashTableSize;
+        this.maxLoadFactor = localSource.maxLoadFactor;
+        this.minLoadFactor = localSource.minLoadFactor;
+        this.powerOfTwo = localSource.powerOfTwo;
+        this.removeAnyCursor = localSource.removeAnyCursor;
+        this.treeBuckets = localSource.treeBuckets;
+        this.modCount++;
+        localSource.createNewRep(localSource.minHashTableSize);
     }
 
     /*
@@ -197,32 +667,42 @@ public class Map4<K, V> extends MapSecondary<K, V> {
     public final void add(K key, V value) {
         assert key != null : "Violation of: key is not null";
         assert value != null : "Violation of: value is not null";
-        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+        assert !this.isInDomain(key) : "Violation of: key is not in DOMAIN(this)";
 
         // Increments size
         this.size++;
+        this.modCount++;
 
         // Initializes an integer with the number of buckets
-        int bucketNum = mod(key.hashCode(), this.hashTable.length);
+        int bucketNum = this.bucketIndex(key.hashCode(), this.hashTable.length);
 
         // Adds the key to the specified bucket (map) in the hash table
-        this.hashTable[bucketNum].add(key, value);
+        this.addToBucket(bucketNum, key, value);
+
+        // Rehashes into a larger table if the buckets are getting long
+        this.growIfNeeded();
 
     }
 
     @Override
     public final Pair<K, V> remove(K key) {
         assert key != null : "Violation of: key is not null";
-        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+        assert this.isInDomain(key) : "Violation of: key is in DOMAIN(this)";
 
         // Decrements size
         this.size--;
+        this.modCount++;
 
         // Initializes an integer with the number of buckets
-        int bucketNum = mod(key.hashCode(), this.hashTable.length);
+        int bucketNum = this.bucketIndex(key.hashCode(), this.hashTable.length);
+
+        // Removes the pair, then rehashes into a smaller table if needed
+        Pair<K, V> removed = this.hashTable[bucketNum].remove(key);
+        this.untreeifyIfNeeded(bucketNum);
+        this.shrinkIfNeeded();
 
         // Returns the removed pair
-        return this.hashTable[bucketNum].remove(key);
+        return removed;
 
     }
 
@@ -232,45 +712,44 @@ public class Map4<K, V> extends MapSecondary<K, V> {
 
         // Decrements size
         this.size--;
+        this.modCount++;
+
+        /*
+         * Walks down from the bucket the previous call stopped at, so draining
+         * the map visits each bucket once; wraps around in case an add has
+         * since filled a bucket above the cursor.
+         */
+        while (this.hashTable[this.removeAnyCursor].size() == 0) {
+            this.removeAnyCursor--;
+            if (this.removeAnyCursor < 0) {
+                this.removeAnyCursor = this.hashTable.length - 1;
+            }
+        }
+
+        // Removes a pair, then rehashes into a smaller table if needed
+        Pair<K, V> removed = this.hashTable[this.removeAnyCursor].removeAny();
+        this.untreeifyIfNeeded(this.removeAnyCursor);
+        this.shrinkIfNeeded();
 
         // Returns the removed pair
-        return this.hashTable[0].removeAny();
+        return removed;
     }
 
     @Override
     public final V value(K key) {
         assert key != null : "Violation of: key is not null";
-        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
-
-        // Initializes an integer with the number of buckets
-        int bucketNum = mod(key.hashCode(), this.hashTable.length);
+        assert this.isInDomain(key) : "Violation of: key is in DOMAIN(this)";
 
-        // Finds the value associated with the bucket bucketNum
-        return this.hashTable[bucketNum].value(key);
+        // Finds the value associated with the key in its bucket
+        return this.hashTable[this.lookupBucketIndex(key)].value(key);
     }
 
     @Override
     public final boolean hasKey(K key) {
         assert key != null : "Violation of: key is not null";
 
-        // Initializes hasKey as false
-        boolean hasKey = false;
-
-        // Finds the bucket number of the key
-        int bucketNum = mod(key.hashCode(), this.hashTable.length);
-
-        // Iterates through each map key in the specific map
-        for (Pair<K, V> p : this.hashTable[bucketNum]) {
-
-            // Returns true if the desired key exists in the map
-            if (p.key().equals(key)) {
-                hasKey = true;
-
-            }
-        }
-
-        // Returns whether the desired key is found
-        return hasKey;
+        // Returns whether the desired key is in its bucket
+        return this.hashTable[this.lookupBucketIndex(key)].hasKey(key);
     }
 
     @Override
@@ -280,47 +759,944 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         return this.size;
     }
 
+    /*
+     * Fused lookup methods ---------------------------------------------------
+     */
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Hashes {@code key} once and replaces the value in the entry found by one
+     * search of its bucket, instead of removing the pair and adding it back.
+     */
     @Override
-    public final Iterator<Pair<K, V>> iterator() {
-        return new Map4Iterator();
+    public final V replaceValue(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert this.isInDomain(key) : "Violation of: key is in DOMAIN(this)";
+
+        this.modCount++;
+        return this.hashTable[this.lookupBucketIndex(key)].replaceValue(key, value);
     }
 
     /**
-     * Implementation of {@code Iterator} interface for {@code Map4}.
+     * Reports the value associated with {@code key}, or {@code defaultValue}
+     * if {@code key} is not in {@code this}. Hashes {@code key} once and
+     * searches its bucket once.
+     *
+     * @param key
+     *            the key whose associated value is to be reported
+     * @param defaultValue
+     *            the value to report if {@code key} is not in {@code this}
+     * @return the value associated with key, or defaultValue
+     * @aliases reference returned by {@code valueOrDefault}
+     * @ensures <pre>
+     * if key is in DOMAIN(this) then
+     *   (key, valueOrDefault) is in this
+     * else
+     *   valueOrDefault = defaultValue
+     * </pre>
      */
-    private final class Map4Iterator implements Iterator<Pair<K, V>> {
+    public final V valueOrDefault(K key, V defaultValue) {
+        assert key != null : "Violation of: key is not null";
 
-        /**
-         * Number of elements seen already (i.e., |~this.seen|).
-         */
-        private int numberSeen;
+        // Finds the entry once, in the only bucket it can be in
+        V result = this.hashTable[this.lookupBucketIndex(key)].valueOrNull(key);
+        if (result == null) {
+            result = defaultValue;
+        }
 
-        /**
-         * Bucket from which current bucket iterator comes.
-         */
-        private int currentBucket;
+        return result;
+    }
 
-        /**
-         * Bucket iterator from which next element will come.
-         */
-        private Iterator<Pair<K, V>> bucketIterator;
+    /**
+     * Adds {@code (key, value)} to {@code this} if {@code key} is not in
+     * {@code this}; otherwise replaces the value associated with {@code key}
+     * by {@code remapping.apply(oldValue, value)}. Hashes {@code key} once,
+     * searches its bucket once, and updates the entry found there in place
+     * (or appends a new one), so a counter can be
+     * bumped with {@code merge(word, 1, Integer::sum)} instead of a
+     * {@code hasKey}/{@code value}/{@code replaceValue} sequence.
+     *
+     * @param key
+     *            the key to add or update
+     * @param value
+     *            the value to add, or to combine with the old value
+     * @param remapping
+     *            the function combining the old value with {@code value}
+     * @return the value now associated with key
+     * @aliases reference returned by {@code merge}
+     * @updates this
+     * @requires [remapping.apply never returns null]
+     * @ensures <pre>
+     * (key, merge) is in this  and
+     * if key is in DOMAIN(#this) then
+     *   this = (#this \ {(key, #this(key))}) union
+     *            {(key, remapping.apply(#this(key), value))}
+     * else
+     *   this = #this union {(key, value)}
+     * </pre>
+     */
+    public final V merge(K key, V value, BinaryOperator<V> remapping) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert remapping != null : "Violation of: remapping is not null";
 
-        /**
-         * No-argument constructor.
-         */
-        Map4Iterator() {
-            this.numberSeen = 0;
-            this.currentBucket = 0;
-            this.bucketIterator = Map4.this.hashTable[0].iterator();
+        // Finds the entry once and updates it there, or adds it if absent
+        int bucketNum = this.lookupBucketIndex(key);
+        V result = this.hashTable[bucketNum].mergeIfPresent(key, value, remapping);
+        this.modCount++;
+        if (result == null) {
+            result = value;
+            this.addToBucket(bucketNum, key, value);
+            this.size++;
+            this.growIfNeeded();
         }
 
-        @Override
-        public boolean hasNext() {
-            return this.numberSeen < Map4.this.size;
+        return result;
+    }
+
+    /*
+     * Bulk loading methods ---------------------------------------------------
+     */
+
+    /**
+     * Grows the hash table, if needed, so that {@code expectedSize} pairs fit
+     * without the load factor passing {@code $this.maxLoadFactor}; later adds
+     * up to that size then never rehash.
+     *
+     * @param expectedSize
+     *            the number of pairs expected
+     * @updates $this.hashTable
+     * @requires 0 <= expectedSize
+     * @ensures <pre>
+     * this = #this  and
+     * expectedSize <= $this.maxLoadFactor * |$this.hashTable|
+     * </pre>
+     */
+    public final void ensureCapacity(int expectedSize) {
+        assert 0 <= expectedSize : "Violation of: 0 <= expectedSize";
+
+        if (expectedSize > this.maxLoadFactor * this.hashTable.length) {
+            int newHashTableSize = (int) Math.ceil(expectedSize / this.maxLoadFactor);
+            if (this.powerOfTwo) {
+                newHashTableSize = powerOfTwoAtLeast(newHashTableSize);
+            } else if (newHashTableSize % 2 == 0) {
+                newHashTableSize++;
+            }
+            this.rehash(newHashTableSize);
         }
+    }
 
-        @Override
-        public Pair<K, V> next() {
+    /**
+     * Adds all of {@code pairs} to {@code this}, sizing the hash table for
+     * {@code expectedSize} more pairs first. Unlike calls to {@code add}, the
+     * keys are not each checked against {@code this} first, so loading n pairs
+     * costs one bucket insertion each and no rehashing (if
+     * {@code expectedSize} is accurate). Another {@code Map} can be passed
+     * directly as {@code pairs}, with its size as {@code expectedSize}.
+     *
+     * @param pairs
+     *            the pairs to add
+     * @param expectedSize
+     *            the number of pairs expected in {@code pairs}
+     * @updates this
+     * @requires <pre>
+     * 0 <= expectedSize  and
+     * [the keys in pairs are distinct and not null]  and
+     * [the values in pairs are not null]  and
+     * [no key in pairs is in DOMAIN(this)]
+     * </pre>
+     * @ensures this = #this union [the pairs in pairs]
+     */
+    public final void addAll(Iterable<Pair<K, V>> pairs, int expectedSize) {
+        assert pairs != null : "Violation of: pairs is not null";
+        assert pairs != this : "Violation of: pairs is not this";
+
+        this.ensureCapacity(this.size + expectedSize);
+
+        for (Pair<K, V> p : pairs) {
+            assert p.key() != null : "Violation of: the keys in pairs are not null";
+            assert p.value() != null : "Violation of: the values in pairs are not null";
+
+            // Goes straight to the bucket, leaving duplicate checks to it
+            int bucketNum = this.bucketIndex(p.key().hashCode(), this.hashTable.length);
+            this.addToBucket(bucketNum, p.key(), p.value());
+            this.size++;
+            this.modCount++;
+
+            // Only rehashes if expectedSize was an underestimate
+            this.growIfNeeded();
+        }
+    }
+
+    /*
+     * Tree bucket methods ----------------------------------------------------
+     */
+
+    /**
+     * Turns tree buckets on or off. While on, any bucket that grows past
+     * {@code TREEIFY_THRESHOLD} keys, all {@code Comparable} and of one
+     * class, is kept as a balanced search tree, so that even keys crafted to
+     * collide cost only O(log n) per lookup; it turns back into a
+     * {@code ChainBucket}
+     * once it shrinks to {@code UNTREEIFY_THRESHOLD}. Turning them off
+     * converts every tree bucket back at once.
+     *
+     * @param enabled
+     *            whether to use tree buckets
+     * @updates $this.hashTable
+     * @requires <pre>
+     * [compareTo of the keys of this is consistent with equals]
+     * </pre>
+     * @ensures this = #this
+     */
+    public final void setTreeBuckets(boolean enabled) {
+        this.treeBuckets = enabled;
+        this.modCount++;
+        if (!enabled) {
+            for (int i = 0; i < this.hashTable.length; i++) {
+                this.untreeifyIfNeeded(i);
+            }
+        }
+    }
+
+    /*
+     * Statistics methods -----------------------------------------------------
+     */
+
+    /**
+     * Starts or stops counting lookups for {@code statistics}; starting resets
+     * the counts. Statistics are off by default, and cost nothing then.
+     *
+     * @param enabled
+     *            whether to count lookups
+     * @ensures [lookups are counted from now on iff enabled]
+     */
+    public final void setStatisticsEnabled(boolean enabled) {
+        this.statisticsEnabled = enabled;
+        if (enabled) {
+            this.lookups = 0;
+            this.probes = 0;
+        }
+    }
+
+    /**
+     * Enables statistics and arranges for {@code reporter} to be given the
+     * {@code statistics} report after every {@code interval} counted lookups,
+     * so that table sizes can be tuned from real workloads.
+     *
+     * @param interval
+     *            number of lookups between reports
+     * @param reporter
+     *            receiver of the reports (e.g., {@code out::println})
+     * @requires interval > 0
+     * @ensures [reporter is given a report every interval lookups]
+     */
+    public final void reportStatisticsEvery(long interval, Consumer<String> reporter) {
+        assert interval > 0 : "Violation of: interval > 0";
+        assert reporter != null : "Violation of: reporter is not null";
+
+        this.setStatisticsEnabled(true);
+        this.reportInterval = interval;
+        this.statisticsReporter = reporter;
+    }
+
+    /**
+     * Reports the current load factor, {@code |this| / |$this.hashTable|}.
+     *
+     * @return the load factor
+     * @ensures loadFactor = |this| / |$this.hashTable|
+     */
+    public final double loadFactor() {
+        return (double) this.size / this.hashTable.length;
+    }
+
+    /**
+     * Reports how many buckets have each length.
+     *
+     * @return histogram where entry i is the number of buckets of length i
+     * @ensures <pre>
+     * |bucketLengthHistogram| = [length of the longest bucket] + 1  and
+     * for all i: integer
+     *     where (0 <= i  and  i < |bucketLengthHistogram|)
+     *   (bucketLengthHistogram[i] = [number of buckets of length i])
+     * </pre>
+     */
+    public final int[] bucketLengthHistogram() {
+        int[] histogram = new int[this.longestChain() + 1];
+        for (Bucket<K, V> bucket : this.hashTable) {
+            histogram[bucket.size()]++;
+        }
+        return histogram;
+    }
+
+    /**
+     * Reports the length of the longest bucket.
+     *
+     * @return the longest bucket length
+     * @ensures longestChain = [length of the longest bucket]
+     */
+    public final int longestChain() {
+        int longest = 0;
+        for (Bucket<K, V> bucket : this.hashTable) {
+            longest = Math.max(longest, bucket.size());
+        }
+        return longest;
+    }
+
+    /**
+     * Reports the number of lookups ({@code hasKey}, {@code value},
+     * {@code replaceValue}, and the fused lookup methods) counted since
+     * statistics were enabled.
+     *
+     * @return the number of lookups counted
+     */
+    public final long lookups() {
+        return this.lookups;
+    }
+
+    /**
+     * Reports the average length of the buckets searched by the lookups
+     * counted since statistics were enabled, or 0 if there were none.
+     *
+     * @return the average probes per lookup
+     * @ensures averageProbes = [total bucket length searched] / [lookups]
+     */
+    public final double averageProbes() {
+        double average = 0;
+        if (this.lookups > 0) {
+            average = (double) this.probes / this.lookups;
+        }
+        return average;
+    }
+
+    /**
+     * Returns a one-line report of all of the statistics above.
+     *
+     * @return the report
+     */
+    public final String statistics() {
+        return "size=" + this.size + " buckets=" + this.hashTable.length
+                + " loadFactor=" + this.loadFactor() + " longestChain="
+                + this.longestChain() + " lookups=" + this.lookups + " averageProbes="
+                + this.averageProbes() + " bucketLengths="
+                + Arrays.toString(this.bucketLengthHistogram());
+    }
+
+    /*
+     * Traversal methods ------------------------------------------------------
+     */
+
+    /**
+     * Calls {@code action} with each (key, value) pair of {@code this}, bucket
+     * by bucket. Empty buckets are skipped without creating an iterator for
+     * them. Named apart from {@code Iterable.forEach}, so that a lambda passed
+     * to either is never ambiguous.
+     *
+     * @param action
+     *            the action to call with each key and value
+     * @requires [action does not change this]
+     * @ensures [action has been called once with each pair in this]
+     * @throws ConcurrentModificationException
+     *             if {@code this} changes during the traversal
+     */
+    public final void forEachEntry(BiConsumer<? super K, ? super V> action) {
+        assert action != null : "Violation of: action is not null";
+
+        int expectedModCount = this.modCount;
+        int remaining = this.size;
+
+        // Stops at the last non-empty bucket rather than the end of the table
+        for (int i = 0; remaining > 0; i++) {
+            Bucket<K, V> bucket = this.hashTable[i];
+            if (bucket.size() > 0) {
+                for (Pair<K, V> p : bucket) {
+                    action.accept(p.key(), p.value());
+                    if (this.modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    remaining--;
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The iterator is fail-fast: {@code next} throws
+     * {@code ConcurrentModificationException} if {@code this} has changed
+     * since the iterator was created.
+     */
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new Map4Iterator();
+    }
+
+    /**
+     * Returns a {@code Spliterator} over the pairs of {@code this} that splits
+     * on ranges of buckets and knows the exact number of pairs in each part,
+     * so that {@code StreamSupport.stream(m.spliterator(), true)} divides the
+     * work evenly between threads. Like the iterator, it is fail-fast.
+     *
+     * @return a Spliterator over this
+     * @requires [this does not change while the Spliterator is in use]
+     */
+    @Override
+    public final Spliterator<Pair<K, V>> spliterator() {
+        return new Map4Spliterator(0, this.hashTable.length, this.size, this.modCount);
+    }
+
+    /**
+     * Bucket of a {@code Map4}: a {@code Map} that can also find an entry and
+     * read or update its value in a single search.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     */
+    private abstract static class Bucket<K, V> extends MapSecondary<K, V> {
+
+        /**
+         * Reports the value associated with {@code key}, or null if
+         * {@code key} is not in {@code this}.
+         *
+         * @param key
+         *            the key
+         * @return the value associated with key, or null
+         * @ensures <pre>
+         * if key is in DOMAIN(this) then (key, valueOrNull) is in this
+         * else valueOrNull = null
+         * </pre>
+         */
+        abstract V valueOrNull(K key);
+
+        /**
+         * If {@code key} is in {@code this}, replaces the value associated with
+         * it by {@code remapping.apply(oldValue, value)} and reports the new
+         * value; otherwise reports null and leaves {@code this} alone.
+         *
+         * @param key
+         *            the key
+         * @param value
+         *            the value to combine with the old value
+         * @param remapping
+         *            the function combining the old value with value
+         * @return the new value associated with key, or null
+         * @updates this
+         * @requires [remapping.apply never returns null]
+         * @ensures <pre>
+         * if key is in DOMAIN(#this) then
+         *   mergeIfPresent = remapping.apply(#this(key), value)  and
+         *   this = (#this \ {(key, #this(key))}) union {(key, mergeIfPresent)}
+         * else
+         *   mergeIfPresent = null  and  this = #this
+         * </pre>
+         */
+        abstract V mergeIfPresent(K key, V value, BinaryOperator<V> remapping);
+
+    }
+
+    /**
+     * Bucket holding its pairs in a singly linked chain, newest first. Each
+     * link holds an immutable pair that iteration and {@code remove} return
+     * as is; updating a value replaces the pair in the link found by the one
+     * search.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     */
+    private static final class ChainBucket<K, V> extends Bucket<K, V> {
+
+        /**
+         * Link of the chain.
+         *
+         * @param <K>
+         *            type of key
+         * @param <V>
+         *            type of value
+         */
+        private static final class Link<K, V> {
+
+            /**
+             * The pair held.
+             */
+            private Pair<K, V> pair;
+
+            /**
+             * Next link, or null at the end of the chain.
+             */
+            private Link<K, V> next;
+
+            /**
+             * Constructor from pair and next link.
+             *
+             * @param pair
+             *            the pair
+             * @param next
+             *            the next link, or null
+             */
+            Link(Pair<K, V> pair, Link<K, V> next) {
+                this.pair = pair;
+                this.next = next;
+            }
+
+        }
+
+        /**
+         * First link, or null if the bucket is empty.
+         */
+        private Link<K, V> first;
+
+        /**
+         * Number of links.
+         */
+        private int length;
+
+        /**
+         * Returns the link holding {@code key}, or null if there is none.
+         *
+         * @param key
+         *            the key
+         * @return the link with key, or null
+         */
+        private Link<K, V> find(K key) {
+            Link<K, V> link = this.first;
+            while (link != null && !link.pair.key().equals(key)) {
+                link = link.next;
+            }
+            return link;
+        }
+
+        @Override
+        public Map<K, V> newInstance() {
+            return new ChainBucket<K, V>();
+        }
+
+        @Override
+        public void clear() {
+            this.first = null;
+            this.length = 0;
+        }
+
+        @Override
+        public void transferFrom(Map<K, V> source) {
+            ChainBucket<K, V> localSource = (ChainBucket<K, V>) source;
+            this.first = localSource.first;
+            this.length = localSource.length;
+            localSource.clear();
+        }
+
+        @Override
+        public void add(K key, V value) {
+            assert this.find(key) == null : "Violation of: key is not in DOMAIN(this)";
+            this.first = new Link<K, V>(new ImmutablePair<K, V>(key, value), this.first);
+            this.length++;
+        }
+
+        @Override
+        public Pair<K, V> remove(K key) {
+            assert this.find(key) != null : "Violation of: key is in DOMAIN(this)";
+
+            // Unlinks the link with key, keeping the link before it at hand
+            Link<K, V> before = null;
+            Link<K, V> link = this.first;
+            while (!link.pair.key().equals(key)) {
+                before = link;
+                link = link.next;
+            }
+            if (before == null) {
+                this.first = link.next;
+            } else {
+                before.next = link.next;
+            }
+            this.length--;
+
+            return link.pair;
+        }
+
+        @Override
+        public Pair<K, V> removeAny() {
+            assert this.length > 0 : "Violation of: this /= empty_set";
+            Link<K, V> link = this.first;
+            this.first = link.next;
+            this.length--;
+            return link.pair;
+        }
+
+        @Override
+        public V value(K key) {
+            Link<K, V> link = this.find(key);
+            assert link != null : "Violation of: key is in DOMAIN(this)";
+            return link.pair.value();
+        }
+
+        @Override
+        public boolean hasKey(K key) {
+            return this.find(key) != null;
+        }
+
+        @Override
+        public V replaceValue(K key, V value) {
+            Link<K, V> link = this.find(key);
+            assert link != null : "Violation of: key is in DOMAIN(this)";
+            V old = link.pair.value();
+            link.pair = new ImmutablePair<K, V>(key, value);
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return this.length;
+        }
+
+        @Override
+        V valueOrNull(K key) {
+            Link<K, V> link = this.find(key);
+            V result = null;
+            if (link != null) {
+                result = link.pair.value();
+            }
+            return result;
+        }
+
+        @Override
+        V mergeIfPresent(K key, V value, BinaryOperator<V> remapping) {
+            Link<K, V> link = this.find(key);
+            V result = null;
+            if (link != null) {
+                result = remapping.apply(link.pair.value(), value);
+                link.pair = new ImmutablePair<K, V>(link.pair.key(), result);
+            }
+            return result;
+        }
+
+        @Override
+        public Iterator<Pair<K, V>> iterator() {
+            return new Iterator<Pair<K, V>>() {
+
+                /**
+                 * Link whose pair {@code next} returns next, or null when done.
+                 */
+                private Link<K, V> next = ChainBucket.this.first;
+
+                @Override
+                public boolean hasNext() {
+                    return this.next != null;
+                }
+
+                @Override
+                public Pair<K, V> next() {
+                    if (this.next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    Pair<K, V> result = this.next.pair;
+                    this.next = this.next.next;
+                    return result;
+                }
+
+            };
+        }
+
+    }
+
+    /**
+     * Bucket holding keys of one {@code Comparable} class in a red-black tree
+     * ({@code java.util.TreeMap}), used in place of a long
+     * {@code ChainBucket}.
+     *
+     * @param <K>
+     *            type of keys
+     * @param <V>
+     *            type of values
+     */
+    private static final class TreeBucket<K, V> extends Bucket<K, V> {
+
+        /**
+         * Class of every key in this bucket.
+         */
+        private final Class<?> keyClass;
+
+        /**
+         * The pairs, ordered by key.
+         */
+        private TreeMap<K, V> tree;
+
+        /**
+         * Constructor from key class.
+         *
+         * @param keyClass
+         *            class of every key to be added
+         */
+        TreeBucket(Class<?> keyClass) {
+            this.keyClass = keyClass;
+            this.tree = new TreeMap<>();
+        }
+
+        @Override
+        public Map<K, V> newInstance() {
+            return new TreeBucket<K, V>(this.keyClass);
+        }
+
+        @Override
+        public void clear() {
+            this.tree = new TreeMap<>();
+        }
+
+        @Override
+        public void transferFrom(Map<K, V> source) {
+            TreeBucket<K, V> localSource = (TreeBucket<K, V>) source;
+            this.tree = localSource.tree;
+            localSource.clear();
+        }
+
+        @Override
+        public void add(K key, V value) {
+            assert !this.tree.containsKey(key)
+                    : "Violation of: key is not in DOMAIN(this)";
+            this.tree.put(key, value);
+        }
+
+        @Override
+        public Pair<K, V> remove(K key) {
+            assert this.tree.containsKey(key) : "Violation of: key is in DOMAIN(this)";
+            return new ImmutablePair<K, V>(key, this.tree.remove(key));
+        }
+
+        @Override
+        public Pair<K, V> removeAny() {
+            assert this.tree.size() > 0 : "Violation of: this /= empty_set";
+            java.util.Map.Entry<K, V> e = this.tree.pollFirstEntry();
+            return new ImmutablePair<K, V>(e.getKey(), e.getValue());
+        }
+
+        @Override
+        public V value(K key) {
+            assert this.tree.containsKey(key) : "Violation of: key is in DOMAIN(this)";
+            return this.tree.get(key);
+        }
+
+        @Override
+        public boolean hasKey(K key) {
+            // A key of another class cannot be compared with, nor equal, these
+            return key.getClass() == this.keyClass && this.tree.containsKey(key);
+        }
+
+        @Override
+        public V replaceValue(K key, V value) {
+            assert this.tree.containsKey(key) : "Violation of: key is in DOMAIN(this)";
+            return this.tree.put(key, value);
+        }
+
+        @Override
+        public int size() {
+            return this.tree.size();
+        }
+
+        @Override
+        V valueOrNull(K key) {
+            // A key of another class cannot be compared with, nor equal, these
+            V result = null;
+            if (key.getClass() == this.keyClass) {
+                result = this.tree.get(key);
+            }
+            return result;
+        }
+
+        @Override
+        V mergeIfPresent(K key, V value, BinaryOperator<V> remapping) {
+            V result = null;
+            if (key.getClass() == this.keyClass) {
+                result = this.tree.computeIfPresent(key,
+                        (k, old) -> remapping.apply(old, value));
+            }
+            return result;
+        }
+
+        @Override
+        public Iterator<Pair<K, V>> iterator() {
+            final Iterator<java.util.Map.Entry<K, V>> entries = this.tree.entrySet()
+                    .iterator();
+            return new Iterator<Pair<K, V>>() {
+
+                @Override
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                @Override
+                public Pair<K, V> next() {
+                    java.util.Map.Entry<K, V> e = entries.next();
+                    return new ImmutablePair<K, V>(e.getKey(), e.getValue());
+                }
+
+            };
+        }
+
+    }
+
+    /**
+     * Implementation of {@code Spliterator} interface for {@code Map4}, over
+     * the pairs in a range of buckets.
+     */
+    private final class Map4Spliterator implements Spliterator<Pair<K, V>> {
+
+        /**
+         * Next bucket not yet started.
+         */
+        private int nextBucket;
+
+        /**
+         * One past the last bucket covered.
+         */
+        private int endBucket;
+
+        /**
+         * Number of pairs not yet returned, including those left in
+         * {@code bucketIterator}.
+         */
+        private long remaining;
+
+        /**
+         * Iterator over the bucket being traversed, or {@code null} between
+         * buckets.
+         */
+        private Iterator<Pair<K, V>> bucketIterator;
+
+        /**
+         * Value of {@code modCount} when the first Spliterator was created.
+         */
+        private final int expectedModCount;
+
+        /**
+         * Constructor from bucket range and number of pairs in it.
+         *
+         * @param firstBucket
+         *            the first bucket covered
+         * @param endBucket
+         *            one past the last bucket covered
+         * @param pairs
+         *            the number of pairs in the buckets covered
+         * @param expectedModCount
+         *            value of {@code modCount} when the Spliterator this one
+         *            was split from was created
+         */
+        Map4Spliterator(int firstBucket, int endBucket, long pairs,
+                int expectedModCount) {
+            this.nextBucket = firstBucket;
+            this.endBucket = endBucket;
+            this.remaining = pairs;
+            this.bucketIterator = null;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Pair<K, V>> action) {
+            assert action != null : "Violation of: action is not null";
+            if (Map4.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            boolean advanced = false;
+            if (this.remaining > 0) {
+                if (this.bucketIterator == null || !this.bucketIterator.hasNext()) {
+                    // Skips empty buckets without creating iterators for them
+                    while (Map4.this.hashTable[this.nextBucket].size() == 0) {
+                        this.nextBucket++;
+                    }
+                    this.bucketIterator = Map4.this.hashTable[this.nextBucket].iterator();
+                    this.nextBucket++;
+                }
+                this.remaining--;
+                action.accept(this.bucketIterator.next());
+                advanced = true;
+            }
+            return advanced;
+        }
+
+        @Override
+        public Spliterator<Pair<K, V>> trySplit() {
+            Spliterator<Pair<K, V>> split = null;
+            int mid = (this.nextBucket + this.endBucket) >>> 1;
+            if (this.nextBucket < mid) {
+                // Counts the upper half's pairs so both halves stay SIZED
+                long upperPairs = 0;
+                for (int i = mid; i < this.endBucket; i++) {
+                    upperPairs += Map4.this.hashTable[i].size();
+                }
+                split = new Map4Spliterator(mid, this.endBucket, upperPairs,
+                        this.expectedModCount);
+                this.endBucket = mid;
+                this.remaining -= upperPairs;
+            }
+            return split;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.DISTINCT
+                    | Spliterator.NONNULL;
+        }
+
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map4}.
+     */
+    private final class Map4Iterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Number of elements seen already (i.e., |~this.seen|).
+         */
+        private int numberSeen;
+
+        /**
+         * Bucket from which current bucket iterator comes.
+         */
+        private int currentBucket;
+
+        /**
+         * Bucket iterator from which next element will come, or {@code null}
+         * before the first call to {@code next}.
+         */
+        private Iterator<Pair<K, V>> bucketIterator;
+
+        /**
+         * Value of {@code modCount} when this iterator was created.
+         */
+        private final int expectedModCount;
+
+        /**
+         * No-argument constructor.
+         */
+        Map4Iterator() {
+            this.numberSeen = 0;
+            this.currentBucket = -1;
+            this.bucketIterator = null;
+            this.expectedModCount = Map4.this.modCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.numberSeen < Map4.this.size;
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            if (Map4.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
             assert this.hasNext() : "Violation of: ~this.unseen /= <>";
             if (!this.hasNext()) {
                 /*
@@ -331,8 +1707,11 @@ public class Map4<K, V> extends MapSecondary<K, V> {
                 throw new NoSuchElementException();
             }
             this.numberSeen++;
-            while (!this.bucketIterator.hasNext()) {
-                this.currentBucket++;
+            if (this.bucketIterator == null || !this.bucketIterator.hasNext()) {
+                // Skips empty buckets without creating iterators for them
+                do {
+                    this.currentBucket++;
+                } while (Map4.this.hashTable[this.currentBucket].size() == 0);
                 this.bucketIterator = Map4.this.hashTable[this.currentBucket].iterator();
             }
             return this.bucketIterator.next();
@@ -0,0 +1,465 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as an open-addressing hash table with linear probing
+ * over parallel arrays of keys, values, and cached hash codes, with
+ * implementations of primary methods.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @mathdefinitions <pre>
+ * HOME(
+ *   h: integer,
+ *   n: integer
+ *  ): integer is
+ *  [h spread and reduced to a slot index in [0, n), see slotOf]
+ *
+ * PROBE_DISTANCE(
+ *   home: integer,
+ *   i: integer,
+ *   n: integer
+ *  ): integer is
+ *  (i - home) mod n
+ * </pre>
+ * @convention <pre>
+ * |$this.keys| = |$this.values| = |$this.hashes|  and
+ * [|$this.keys| is a power of 2]  and
+ * 0 <= $this.size < |$this.keys|  and
+ * $this.size = [number of non-null entries in $this.keys]  and
+ * for all i: integer
+ *     where (0 <= i  and  i < |$this.keys|  and  $this.keys[i] /= null)
+ *   ($this.values[i] /= null  and
+ *    $this.hashes[i] = [computed result of $this.keys[i].hashCode()]  and
+ *    for all j: integer
+ *        where (0 <= PROBE_DISTANCE(HOME($this.hashes[i], |$this.keys|), j,
+ *                      |$this.keys|)  and
+ *               PROBE_DISTANCE(HOME($this.hashes[i], |$this.keys|), j,
+ *                      |$this.keys|) <
+ *               PROBE_DISTANCE(HOME($this.hashes[i], |$this.keys|), i,
+ *                      |$this.keys|))
+ *      ($this.keys[j] /= null))  and
+ * for all i, j: integer
+ *     where (0 <= i < j < |$this.keys|  and
+ *            $this.keys[i] /= null  and  $this.keys[j] /= null)
+ *   (not $this.keys[i].equals($this.keys[j]))
+ * </pre>
+ * @correspondence <pre>
+ * this = {(k, v): (K, V)
+ *          where (there exists i: integer
+ *                  (0 <= i  and  i < |$this.keys|  and
+ *                   $this.keys[i] = k  and  $this.values[i] = v))}
+ * </pre>
+ *
+ * @author Sean-Paul Billups, Michael Hu
+ *
+ */
+public class Map5<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default number of slots; must be a power of 2.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Numerator of the load factor above which the table grows.
+     */
+    private static final int MAX_LOAD_NUMERATOR = 3;
+
+    /**
+     * Denominator of the load factor above which the table grows.
+     */
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+
+    /**
+     * Keys, or {@code null} for empty slots.
+     */
+    private Object[] keys;
+
+    /**
+     * Values associated with the keys in the same slots.
+     */
+    private Object[] values;
+
+    /**
+     * Cached {@code hashCode} of the keys in the same slots.
+     */
+    private int[] hashes;
+
+    /**
+     * Total size of abstract {@code this}.
+     */
+    private int size;
+
+    /**
+     * Slot at which {@code removeAny} resumes its scan.
+     */
+    private int removeAnyCursor;
+
+    /**
+     * Returns the home slot of a key with hash code {@code h} in a table with
+     * {@code n} slots.
+     *
+     * @param h
+     *            the hash code
+     * @param n
+     *            the number of slots
+     * @return the home slot
+     * @requires [n is a power of 2]
+     * @ensures slotOf = HOME(h, n)  and  0 <= slotOf < n
+     */
+    private static int slotOf(int h, int n) {
+        // Mixes the high bits in, since only the low bits pick the slot
+        return (h ^ (h >>> 16)) & (n - 1);
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param capacity
+     *            the number of slots
+     * @requires [capacity is a power of 2]  and  capacity > 1
+     * @ensures <pre>
+     * |$this.keys| = capacity  and
+     * [all entries of $this.keys are null]  and
+     * $this.size = 0
+     * </pre>
+     */
+    private void createNewRep(int capacity) {
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+        this.hashes = new int[capacity];
+        this.size = 0;
+        this.removeAnyCursor = capacity - 1;
+    }
+
+    /**
+     * Returns the slot holding {@code key}, or -1 if there is none.
+     *
+     * @param key
+     *            the key to look for
+     * @param h
+     *            the hash code of {@code key}
+     * @return the slot holding key, or -1
+     * @requires h = [computed result of key.hashCode()]
+     * @ensures <pre>
+     * if key is in DOMAIN(this) then
+     *   $this.keys[indexOf] = key
+     * else
+     *   indexOf = -1
+     * </pre>
+     */
+    private int indexOf(K key, int h) {
+        int mask = this.keys.length - 1;
+        int i = slotOf(h, this.keys.length);
+
+        // Probes until the key or an empty slot is found
+        while (this.keys[i] != null
+                && (this.hashes[i] != h || !this.keys[i].equals(key))) {
+            i = (i + 1) & mask;
+        }
+
+        int index = -1;
+        if (this.keys[i] != null) {
+            index = i;
+        }
+        return index;
+    }
+
+    /**
+     * Puts {@code key} and {@code value} in the first empty slot of the probe
+     * sequence for {@code h}.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     * @param h
+     *            the hash code of {@code key}
+     * @updates $this.keys, $this.values, $this.hashes
+     * @requires <pre>
+     * key is not in DOMAIN(this)  and  [$this.keys has an empty slot]  and
+     * h = [computed result of key.hashCode()]
+     * </pre>
+     * @ensures this = #this union {(key, value)}
+     */
+    private void insert(Object key, Object value, int h) {
+        int mask = this.keys.length - 1;
+        int i = slotOf(h, this.keys.length);
+        while (this.keys[i] != null) {
+            i = (i + 1) & mask;
+        }
+        this.keys[i] = key;
+        this.values[i] = value;
+        this.hashes[i] = h;
+    }
+
+    /**
+     * Doubles the number of slots, reinserting every entry using its cached
+     * hash code.
+     *
+     * @updates $this.keys, $this.values, $this.hashes
+     * @ensures this = #this  and  |$this.keys| = 2 * |#$this.keys|
+     */
+    private void grow() {
+        Object[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        int[] oldHashes = this.hashes;
+        int oldSize = this.size;
+
+        this.createNewRep(2 * oldKeys.length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                this.insert(oldKeys[i], oldValues[i], oldHashes[i]);
+            }
+        }
+        this.size = oldSize;
+    }
+
+    /**
+     * Empties slot {@code hole}, then shifts later entries of the same probe
+     * run back so that no lookup is cut short by the new empty slot.
+     *
+     * @param hole
+     *            the slot to empty
+     * @updates $this.keys, $this.values, $this.hashes
+     * @requires 0 <= hole < |$this.keys|  and  $this.keys[hole] /= null
+     * @ensures this = #this \ {($this.keys[hole], $this.values[hole])}
+     */
+    private void deleteSlot(int hole) {
+        int mask = this.keys.length - 1;
+        int j = hole;
+        int k = (j + 1) & mask;
+
+        while (this.keys[k] != null) {
+            int home = slotOf(this.hashes[k], this.keys.length);
+
+            /*
+             * The entry at k may move into the hole at j only if j lies on its
+             * probe sequence, i.e., it is no nearer to home than k is.
+             */
+            if (((k - home) & mask) >= ((k - j) & mask)) {
+                this.keys[j] = this.keys[k];
+                this.values[j] = this.values[k];
+                this.hashes[j] = this.hashes[k];
+                j = k;
+            }
+            k = (k + 1) & mask;
+        }
+
+        this.keys[j] = null;
+        this.values[j] = null;
+        this.hashes[j] = 0;
+    }
+
+    /**
+     * Removes the entry at slot {@code i} and returns it.
+     *
+     * @param i
+     *            the slot of the entry
+     * @return the removed pair
+     * @updates this
+     * @requires 0 <= i < |$this.keys|  and  $this.keys[i] /= null
+     * @ensures <pre>
+     * removeSlot = (#$this.keys[i], #$this.values[i])  and
+     * this = #this \ {removeSlot}
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private Pair<K, V> removeSlot(int i) {
+        Pair<K, V> removed = new ImmutablePair<>((K) this.keys[i], (V) this.values[i]);
+        this.deleteSlot(i);
+        this.size--;
+        return removed;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Map5() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Map5<?, ?>
+                : "" + "Violation of: source is of dynamic type Map5<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Map5<?,?>, and
+         * the ?,? must be K,V or the call would not have compiled.
+         */
+        Map5<K, V> localSource = (Map5<K, V>) source;
+        this.keys = localSource.keys;
+        this.values = localSource.values;
+        this.hashes = localSource.hashes;
+        this.size = localSource.size;
+        this.removeAnyCursor = localSource.removeAnyCursor;
+        localSource.createNewRep(DEFAULT_CAPACITY);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        // Grows first so that the probe below always finds an empty slot
+        if (MAX_LOAD_DENOMINATOR * (this.size + 1) > MAX_LOAD_NUMERATOR
+                * this.keys.length) {
+            this.grow();
+        }
+
+        this.insert(key, value, key.hashCode());
+        this.size++;
+    }
+
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return this.removeSlot(this.indexOf(key, key.hashCode()));
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        /*
+         * Scans down from where the last call stopped; backward shifting can
+         * only refill the slot just emptied or wrap an entry to the top, so
+         * wrapping the cursor around keeps this correct.
+         */
+        while (this.keys[this.removeAnyCursor] == null) {
+            this.removeAnyCursor--;
+            if (this.removeAnyCursor < 0) {
+                this.removeAnyCursor = this.keys.length - 1;
+            }
+        }
+
+        return this.removeSlot(this.removeAnyCursor);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return (V) this.values[this.indexOf(key, key.hashCode())];
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.indexOf(key, key.hashCode()) >= 0;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new Map5Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map5}.
+     */
+    private final class Map5Iterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Number of elements seen already (i.e., |~this.seen|).
+         */
+        private int numberSeen;
+
+        /**
+         * Slot at which the search for the next element starts.
+         */
+        private int nextSlot;
+
+        /**
+         * No-argument constructor.
+         */
+        Map5Iterator() {
+            this.numberSeen = 0;
+            this.nextSlot = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.numberSeen < Map5.this.size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            this.numberSeen++;
+            while (Map5.this.keys[this.nextSlot] == null) {
+                this.nextSlot++;
+            }
+            int i = this.nextSlot;
+            this.nextSlot++;
+            return new ImmutablePair<>((K) Map5.this.keys[i], (V) Map5.this.values[i]);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
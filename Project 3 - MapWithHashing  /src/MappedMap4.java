@@ -0,0 +1,774 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} from {@code String} to {@code Integer} represented as an
+ * open-addressing hash table (linear probing) kept entirely in a
+ * memory-mapped file, with implementations of primary methods. Reopening the
+ * same file with {@code MappedMap4(file)} brings the map back without reading
+ * or rehashing its entries.
+ *
+ * <p>
+ * File layout: a header, then a directory of fixed-width slots, then an
+ * overflow region holding the UTF-8 bytes of the keys:
+ *
+ * <pre>
+ * header   (32 bytes):  magic, capacity, size, overflow bytes, overflow end
+ * slot     (16 bytes):  key hash, key offset, key length + 1 (0 if empty),
+ *                       value
+ * overflow:             key bytes, appended as keys are added
+ * </pre>
+ *
+ * Key bytes of removed keys are reclaimed the next time the table grows. A
+ * file is limited to 2^31 - 1 bytes.
+ *
+ * @mathdefinitions <pre>
+ * SLOT_KEY(
+ *   i: integer
+ *  ): string of character is
+ *  [the UTF-8 decoding of the key bytes that slot i of the directory refers
+ *   to in the overflow region]
+ *
+ * SLOT_VALUE(
+ *   i: integer
+ *  ): integer is
+ *  [the value field of slot i of the directory]
+ * </pre>
+ * @convention <pre>
+ * [$this.buffer maps at least HEADER_BYTES + $this.capacity * SLOT_BYTES +
+ *  $this.overflowBytes bytes of $this.file]  and
+ * [the header in $this.buffer holds MAGIC, $this.capacity, $this.size,
+ *  $this.overflowBytes, and $this.overflowEnd]  and
+ * [$this.capacity is a power of 2]  and
+ * 2 * $this.size <= $this.capacity  and
+ * 0 <= $this.overflowEnd <= $this.overflowBytes  and
+ * [every used slot refers to key bytes within [0, $this.overflowEnd) of the
+ *  overflow region, and holds the String.hashCode of its key]  and
+ * [the keys of the used slots are distinct]  and
+ * [every slot on the probe sequence of a used slot's key before that slot is
+ *  used]  and
+ * 0 <= $this.removeAnyCursor < $this.capacity
+ * </pre>
+ * @correspondence <pre>
+ * this = {(k, v): (string of character, integer)
+ *          where (there exists i: integer
+ *                  ([slot i is used]  and
+ *                   SLOT_KEY(i) = k  and  SLOT_VALUE(i) = v))}
+ * </pre>
+ *
+ * @author Sean-Paul Billups, Michael Hu
+ *
+ */
+public class MappedMap4 extends MapSecondary<String, Integer> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Marks a file as holding a {@code MappedMap4} ("MAP4").
+     */
+    private static final int MAGIC = 0x4D415034;
+
+    /**
+     * Size of the header.
+     */
+    private static final int HEADER_BYTES = 32;
+
+    /**
+     * Header offset of the magic number.
+     */
+    private static final int MAGIC_AT = 0;
+
+    /**
+     * Header offset of the number of slots.
+     */
+    private static final int CAPACITY_AT = 4;
+
+    /**
+     * Header offset of the number of entries.
+     */
+    private static final int SIZE_AT = 8;
+
+    /**
+     * Header offset of the size of the overflow region.
+     */
+    private static final int OVERFLOW_BYTES_AT = 12;
+
+    /**
+     * Header offset of the number of overflow bytes in use.
+     */
+    private static final int OVERFLOW_END_AT = 16;
+
+    /**
+     * Size of a directory slot.
+     */
+    private static final int SLOT_BYTES = 16;
+
+    /**
+     * Slot offset of the key hash.
+     */
+    private static final int HASH_AT = 0;
+
+    /**
+     * Slot offset of the key's offset in the overflow region.
+     */
+    private static final int KEY_OFFSET_AT = 4;
+
+    /**
+     * Slot offset of the key length plus one, or 0 for an empty slot.
+     */
+    private static final int KEY_LENGTH_AT = 8;
+
+    /**
+     * Slot offset of the value.
+     */
+    private static final int VALUE_AT = 12;
+
+    /**
+     * Number of slots in a new file; must be a power of 2.
+     */
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Size of the overflow region in a new file.
+     */
+    private static final int DEFAULT_OVERFLOW_BYTES = 16 * 1024;
+
+    /**
+     * The backing file.
+     */
+    private Path file;
+
+    /**
+     * The mapping of the backing file.
+     */
+    private MappedByteBuffer buffer;
+
+    /**
+     * Number of slots (cached from the header).
+     */
+    private int capacity;
+
+    /**
+     * Number of entries (cached from the header).
+     */
+    private int size;
+
+    /**
+     * Size of the overflow region (cached from the header).
+     */
+    private int overflowBytes;
+
+    /**
+     * Number of overflow bytes in use (cached from the header).
+     */
+    private int overflowEnd;
+
+    /**
+     * Slot at which {@code removeAny} resumes its scan.
+     */
+    private int removeAnyCursor;
+
+    /**
+     * Returns the slot that a key with hash code {@code h} starts probing at.
+     *
+     * @param h
+     *            the hash code
+     * @param n
+     *            the number of slots
+     * @return the home slot
+     * @requires [n is a power of 2]
+     * @ensures 0 <= slotOf < n
+     */
+    private static int slotOf(int h, int n) {
+        return (h ^ (h >>> 16)) & (n - 1);
+    }
+
+    /**
+     * Returns a new, empty temporary file that is deleted when the JVM exits.
+     *
+     * @return the temporary file
+     */
+    private static Path newTempFile() {
+        try {
+            Path temp = Files.createTempFile("MappedMap4", ".map");
+            temp.toFile().deleteOnExit();
+            return temp;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Maps the first {@code bytes} bytes of {@code $this.file}, extending the
+     * file if it is shorter.
+     *
+     * @param bytes
+     *            the number of bytes to map
+     * @updates $this.buffer
+     * @requires 0 < bytes < 2^31
+     */
+    private void map(long bytes) {
+        try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            // The mapping stays valid after the channel is closed
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the cached header fields to the header in {@code $this.buffer}.
+     *
+     * @updates $this.buffer
+     */
+    private void writeHeader() {
+        this.buffer.putInt(MAGIC_AT, MAGIC);
+        this.buffer.putInt(CAPACITY_AT, this.capacity);
+        this.buffer.putInt(SIZE_AT, this.size);
+        this.buffer.putInt(OVERFLOW_BYTES_AT, this.overflowBytes);
+        this.buffer.putInt(OVERFLOW_END_AT, this.overflowEnd);
+    }
+
+    /**
+     * Lays out an empty map with {@code newCapacity} slots and
+     * {@code newOverflowBytes} of overflow in {@code $this.file}.
+     *
+     * @param newCapacity
+     *            the number of slots
+     * @param newOverflowBytes
+     *            the size of the overflow region
+     * @updates $this
+     * @requires [newCapacity is a power of 2]  and  newOverflowBytes >= 0
+     * @ensures this = {}
+     */
+    private void format(int newCapacity, int newOverflowBytes) {
+        this.map(HEADER_BYTES + (long) newCapacity * SLOT_BYTES + newOverflowBytes);
+        this.capacity = newCapacity;
+        this.size = 0;
+        this.overflowBytes = newOverflowBytes;
+        this.overflowEnd = 0;
+        this.removeAnyCursor = newCapacity - 1;
+
+        // Marks every slot empty; the file may hold an older, larger map
+        for (int i = 0; i < newCapacity; i++) {
+            this.buffer.putInt(slotAt(i) + KEY_LENGTH_AT, 0);
+        }
+        this.writeHeader();
+    }
+
+    /**
+     * Creator of representation: reopens the map in {@code file} if it holds
+     * one, and otherwise lays out an empty map in it.
+     *
+     * @param backingFile
+     *            the backing file
+     * @ensures $this.file = backingFile
+     */
+    private void open(Path backingFile) {
+        this.file = backingFile;
+
+        int magic = 0;
+        try {
+            if (Files.exists(backingFile) && Files.size(backingFile) >= HEADER_BYTES) {
+                this.map(HEADER_BYTES);
+                magic = this.buffer.getInt(MAGIC_AT);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (magic == MAGIC) {
+            this.capacity = this.buffer.getInt(CAPACITY_AT);
+            this.size = this.buffer.getInt(SIZE_AT);
+            this.overflowBytes = this.buffer.getInt(OVERFLOW_BYTES_AT);
+            this.overflowEnd = this.buffer.getInt(OVERFLOW_END_AT);
+            this.removeAnyCursor = this.capacity - 1;
+            this.map(HEADER_BYTES + (long) this.capacity * SLOT_BYTES
+                    + this.overflowBytes);
+        } else {
+            this.format(DEFAULT_CAPACITY, DEFAULT_OVERFLOW_BYTES);
+        }
+    }
+
+    /**
+     * Returns the position of slot {@code i} in {@code $this.buffer}.
+     *
+     * @param i
+     *            the slot
+     * @return the position of slot i
+     */
+    private static int slotAt(int i) {
+        return HEADER_BYTES + i * SLOT_BYTES;
+    }
+
+    /**
+     * Returns the position of the overflow region in {@code $this.buffer}.
+     *
+     * @return the position of the overflow region
+     */
+    private int overflowAt() {
+        return HEADER_BYTES + this.capacity * SLOT_BYTES;
+    }
+
+    /**
+     * Reports whether slot {@code i} is used.
+     *
+     * @param i
+     *            the slot
+     * @return whether slot i is used
+     */
+    private boolean isUsed(int i) {
+        return this.buffer.getInt(slotAt(i) + KEY_LENGTH_AT) != 0;
+    }
+
+    /**
+     * Returns the UTF-8 bytes of the key in (used) slot {@code i}.
+     *
+     * @param i
+     *            the slot
+     * @return the key bytes
+     * @requires [slot i is used]
+     */
+    private byte[] keyBytes(int i) {
+        int at = slotAt(i);
+        byte[] bytes = new byte[this.buffer.getInt(at + KEY_LENGTH_AT) - 1];
+        ByteBuffer view = this.buffer.duplicate();
+        view.position(this.overflowAt() + this.buffer.getInt(at + KEY_OFFSET_AT));
+        view.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns the slot holding the key with UTF-8 bytes {@code key} and hash
+     * {@code h}, or {@code -(e + 1)} where {@code e} is the empty slot at
+     * which the probe stopped.
+     *
+     * @param key
+     *            the UTF-8 bytes of the key
+     * @param h
+     *            the hash code of the key
+     * @return the slot of the key, or -(empty slot + 1)
+     */
+    private int find(byte[] key, int h) {
+        int mask = this.capacity - 1;
+        int i = slotOf(h, this.capacity);
+        int result = 0;
+        boolean done = false;
+
+        while (!done) {
+            int at = slotAt(i);
+            int lengthPlusOne = this.buffer.getInt(at + KEY_LENGTH_AT);
+            if (lengthPlusOne == 0) {
+                result = -(i + 1);
+                done = true;
+            } else if (this.buffer.getInt(at + HASH_AT) == h
+                    && lengthPlusOne == key.length + 1) {
+                // Compares the bytes in place, without decoding the key
+                int keyAt = this.overflowAt() + this.buffer.getInt(at + KEY_OFFSET_AT);
+                int j = 0;
+                while (j < key.length && this.buffer.get(keyAt + j) == key[j]) {
+                    j++;
+                }
+                if (j == key.length) {
+                    result = i;
+                    done = true;
+                }
+            }
+            i = (i + 1) & mask;
+        }
+
+        return result;
+    }
+
+    /**
+     * Writes an entry into empty slot {@code i}, with its key bytes at
+     * {@code keyOffset} of the overflow region.
+     *
+     * @param i
+     *            the empty slot
+     * @param h
+     *            the key hash
+     * @param keyOffset
+     *            the offset of the key bytes in the overflow region
+     * @param keyLength
+     *            the number of key bytes
+     * @param value
+     *            the value
+     * @updates $this.buffer
+     */
+    private void writeSlot(int i, int h, int keyOffset, int keyLength, int value) {
+        int at = slotAt(i);
+        this.buffer.putInt(at + HASH_AT, h);
+        this.buffer.putInt(at + KEY_OFFSET_AT, keyOffset);
+        this.buffer.putInt(at + KEY_LENGTH_AT, keyLength + 1);
+        this.buffer.putInt(at + VALUE_AT, value);
+    }
+
+    /**
+     * Appends {@code key} to the overflow region and puts it with
+     * {@code value} in the first empty slot of its probe sequence.
+     *
+     * @param key
+     *            the UTF-8 bytes of the key
+     * @param h
+     *            the hash code of the key
+     * @param value
+     *            the value
+     * @updates this
+     * @requires <pre>
+     * [key is not in DOMAIN(this)]  and  2 * ($this.size + 1) <= $this.capacity
+     * and  $this.overflowEnd + |key| <= $this.overflowBytes
+     * </pre>
+     * @ensures this = #this union {(key, value)}
+     */
+    private void insert(byte[] key, int h, int value) {
+        int i = -(this.find(key, h) + 1);
+
+        ByteBuffer view = this.buffer.duplicate();
+        view.position(this.overflowAt() + this.overflowEnd);
+        view.put(key);
+
+        this.writeSlot(i, h, this.overflowEnd, key.length, value);
+        this.overflowEnd += key.length;
+        this.size++;
+    }
+
+    /**
+     * Rebuilds the map with enough slots and overflow for one more key of
+     * {@code extraKeyBytes} bytes, dropping the bytes of removed keys.
+     *
+     * @param extraKeyBytes
+     *            the length of the key about to be added
+     * @updates $this
+     * @ensures this = #this
+     */
+    private void grow(int extraKeyBytes) {
+        int n = this.size;
+        byte[][] keys = new byte[n][];
+        int[] hashes = new int[n];
+        int[] values = new int[n];
+        long liveKeyBytes = extraKeyBytes;
+
+        // Copies the live entries out before the file is laid out again
+        int k = 0;
+        for (int i = 0; i < this.capacity; i++) {
+            if (this.isUsed(i)) {
+                keys[k] = this.keyBytes(i);
+                hashes[k] = this.buffer.getInt(slotAt(i) + HASH_AT);
+                values[k] = this.buffer.getInt(slotAt(i) + VALUE_AT);
+                liveKeyBytes += keys[k].length;
+                k++;
+            }
+        }
+
+        int newCapacity = this.capacity;
+        while (2 * (n + 1) > newCapacity) {
+            newCapacity *= 2;
+        }
+        long newOverflowBytes = Math.max(this.overflowBytes, 2 * liveKeyBytes);
+        assert HEADER_BYTES + (long) newCapacity * SLOT_BYTES
+                + newOverflowBytes <= Integer.MAX_VALUE
+                : "Violation of: [file stays within 2^31 - 1 bytes]";
+
+        this.format(newCapacity, (int) newOverflowBytes);
+        for (int j = 0; j < n; j++) {
+            this.insert(keys[j], hashes[j], values[j]);
+        }
+        this.writeHeader();
+    }
+
+    /**
+     * Empties slot {@code hole}, then shifts later entries of the same probe
+     * run back so that no lookup is cut short by the new empty slot.
+     *
+     * @param hole
+     *            the slot to empty
+     * @updates this
+     * @requires [slot hole is used]
+     * @ensures this = #this \ {(SLOT_KEY(hole), SLOT_VALUE(hole))}
+     */
+    private void deleteSlot(int hole) {
+        int mask = this.capacity - 1;
+        int j = hole;
+        int k = (j + 1) & mask;
+
+        while (this.isUsed(k)) {
+            int home = slotOf(this.buffer.getInt(slotAt(k) + HASH_AT), this.capacity);
+            if (((k - home) & mask) >= ((k - j) & mask)) {
+                for (int b = 0; b < SLOT_BYTES; b += Integer.BYTES) {
+                    this.buffer.putInt(slotAt(j) + b, this.buffer.getInt(slotAt(k) + b));
+                }
+                j = k;
+            }
+            k = (k + 1) & mask;
+        }
+
+        this.buffer.putInt(slotAt(j) + KEY_LENGTH_AT, 0);
+        this.size--;
+        this.writeHeader();
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor; the map is kept in a temporary file.
+     */
+    public MappedMap4() {
+        this.open(newTempFile());
+    }
+
+    /**
+     * Constructor from backing file: reopens the map kept in {@code file}, or
+     * starts an empty one there if {@code file} is missing or empty.
+     *
+     * @param file
+     *            the backing file
+     * @requires [file is missing, empty, or was written by MappedMap4]
+     * @ensures <pre>
+     * if [file holds a map m] then this = m else this = {}
+     * </pre>
+     */
+    public MappedMap4(File file) {
+        assert file != null : "Violation of: file is not null";
+
+        this.open(file.toPath());
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<String, Integer> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.format(DEFAULT_CAPACITY, DEFAULT_OVERFLOW_BYTES);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * {@code this} takes over the backing file of {@code source}, and
+     * {@code source} moves to a new temporary file.
+     */
+    @Override
+    public final void transferFrom(Map<String, Integer> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof MappedMap4
+                : "" + "Violation of: source is of dynamic type MappedMap4";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case.
+         */
+        MappedMap4 localSource = (MappedMap4) source;
+        this.file = localSource.file;
+        this.buffer = localSource.buffer;
+        this.capacity = localSource.capacity;
+        this.size = localSource.size;
+        this.overflowBytes = localSource.overflowBytes;
+        this.overflowEnd = localSource.overflowEnd;
+        this.removeAnyCursor = localSource.removeAnyCursor;
+        localSource.open(newTempFile());
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(String key, Integer value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (2 * (this.size + 1) > this.capacity
+                || this.overflowEnd + bytes.length > this.overflowBytes) {
+            this.grow(bytes.length);
+        }
+
+        this.insert(bytes, key.hashCode(), value);
+        this.writeHeader();
+    }
+
+    @Override
+    public final Pair<String, Integer> remove(String key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        int i = this.find(key.getBytes(StandardCharsets.UTF_8), key.hashCode());
+        Integer value = this.buffer.getInt(slotAt(i) + VALUE_AT);
+        this.deleteSlot(i);
+
+        return new ImmutablePair<String, Integer>(key, value);
+    }
+
+    @Override
+    public final Pair<String, Integer> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        // Scans down from where the last call stopped, wrapping if needed
+        while (!this.isUsed(this.removeAnyCursor)) {
+            this.removeAnyCursor--;
+            if (this.removeAnyCursor < 0) {
+                this.removeAnyCursor = this.capacity - 1;
+            }
+        }
+
+        int i = this.removeAnyCursor;
+        String key = new String(this.keyBytes(i), StandardCharsets.UTF_8);
+        Integer value = this.buffer.getInt(slotAt(i) + VALUE_AT);
+        this.deleteSlot(i);
+
+        return new ImmutablePair<String, Integer>(key, value);
+    }
+
+    @Override
+    public final Integer value(String key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        int i = this.find(key.getBytes(StandardCharsets.UTF_8), key.hashCode());
+        return this.buffer.getInt(slotAt(i) + VALUE_AT);
+    }
+
+    @Override
+    public final boolean hasKey(String key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.find(key.getBytes(StandardCharsets.UTF_8), key.hashCode()) >= 0;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Pair<String, Integer>> iterator() {
+        return new MappedMap4Iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Replaces the value associated with {@code key} by {@code value} in its
+     * slot, without touching the key bytes, and returns the old value.
+     *
+     * @param key
+     *            the key whose associated value is replaced
+     * @param value
+     *            the new value
+     * @return the old value
+     */
+    @Override
+    public final Integer replaceValue(String key, Integer value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        int at = slotAt(this.find(key.getBytes(StandardCharsets.UTF_8), key.hashCode()));
+        Integer old = this.buffer.getInt(at + VALUE_AT);
+        this.buffer.putInt(at + VALUE_AT, value);
+
+        return old;
+    }
+
+    /**
+     * Writes any changes to {@code this} still held in memory out to the
+     * backing file, so they survive a crash of the machine (they already
+     * survive the JVM exiting).
+     */
+    public final void flush() {
+        this.buffer.force();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code MappedMap4}.
+     */
+    private final class MappedMap4Iterator implements Iterator<Pair<String, Integer>> {
+
+        /**
+         * Number of elements seen already (i.e., |~this.seen|).
+         */
+        private int numberSeen;
+
+        /**
+         * Slot at which the search for the next element starts.
+         */
+        private int nextSlot;
+
+        /**
+         * No-argument constructor.
+         */
+        MappedMap4Iterator() {
+            this.numberSeen = 0;
+            this.nextSlot = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.numberSeen < MappedMap4.this.size;
+        }
+
+        @Override
+        public Pair<String, Integer> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            this.numberSeen++;
+            while (!MappedMap4.this.isUsed(this.nextSlot)) {
+                this.nextSlot++;
+            }
+            int i = this.nextSlot;
+            this.nextSlot++;
+            return new ImmutablePair<String, Integer>(
+                    new String(MappedMap4.this.keyBytes(i), StandardCharsets.UTF_8),
+                    MappedMap4.this.buffer.getInt(slotAt(i) + VALUE_AT));
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,124 @@
+import components.map.Map;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Times {@code Map4} lookups of keys whose hash codes are near
+ * {@code Integer.MIN_VALUE} against keys with small positive hash codes, with
+ * both the {@code mod} and the power-of-2 bucket selection. The time per
+ * lookup should be about the same in every row.
+ *
+ * @author Sean-Paul Billups, Michael Hu
+ *
+ */
+public final class BucketIndexBenchmark {
+
+    /**
+     * Number of keys in each map.
+     */
+    private static final int KEYS = 1_000;
+
+    /**
+     * Number of passes over all keys per measurement.
+     */
+    private static final int PASSES = 2_000;
+
+    /**
+     * Initial hash table size (odd, as with the default constructor).
+     */
+    private static final int TABLE_SIZE = 101;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private BucketIndexBenchmark() {
+    }
+
+    /**
+     * Key whose hash code is fixed at construction.
+     */
+    private static final class FixedHashKey {
+
+        /**
+         * The hash code, which also identifies the key.
+         */
+        private final int hash;
+
+        /**
+         * Constructor from hash code.
+         *
+         * @param hash
+         *            the hash code
+         */
+        FixedHashKey(int hash) {
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof FixedHashKey && ((FixedHashKey) obj).hash == this.hash;
+        }
+
+    }
+
+    /**
+     * Returns the average nanoseconds per {@code hasKey} call for the given
+     * keys in a {@code Map4} with the given bucket selection.
+     *
+     * @param firstHash
+     *            hash code of the first key; the others follow consecutively
+     * @param powerOfTwo
+     *            whether the map uses power-of-2 bucket selection
+     * @return the average time per lookup
+     */
+    private static double nanosPerLookup(int firstHash, boolean powerOfTwo) {
+        FixedHashKey[] keys = new FixedHashKey[KEYS];
+        Map<FixedHashKey, Integer> m = new Map4<>(TABLE_SIZE, 0.75, 0.25, powerOfTwo);
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = new FixedHashKey(firstHash + i);
+            m.add(keys[i], i);
+        }
+
+        int found = 0;
+        long start = System.nanoTime();
+        for (int pass = 0; pass < PASSES; pass++) {
+            for (FixedHashKey k : keys) {
+                if (m.hasKey(k)) {
+                    found++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assert found == KEYS * PASSES;
+        return (double) elapsed / found;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        // Runs once untimed so that both paths are compiled before measuring
+        nanosPerLookup(0, false);
+        nanosPerLookup(0, true);
+
+        out.println("hash codes\tbuckets\tns/lookup");
+        out.println("MIN_VALUE..\tmod\t" + nanosPerLookup(Integer.MIN_VALUE, false));
+        out.println("0..\t\tmod\t" + nanosPerLookup(0, false));
+        out.println("MIN_VALUE..\t2^k\t" + nanosPerLookup(Integer.MIN_VALUE, true));
+        out.println("0..\t\t2^k\t" + nanosPerLookup(0, true));
+
+        out.close();
+    }
+
+}
@@ -0,0 +1,113 @@
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Times {@code Map4} lookups of {@code String} keys that all share one hash
+ * code, with tree buckets off and on. Strings made of the blocks "Aa" and "BB"
+ * collide because both blocks hash to the same value, so k blocks give 2^k
+ * keys in a single bucket. With tree buckets off the time per lookup grows
+ * linearly with the number of keys; with them on it grows logarithmically.
+ *
+ * @author Sean-Paul Billups, Michael Hu
+ *
+ */
+public final class CollisionBenchmark {
+
+    /**
+     * Smallest number of blocks per key.
+     */
+    private static final int MIN_BLOCKS = 8;
+
+    /**
+     * Largest number of blocks per key.
+     */
+    private static final int MAX_BLOCKS = 13;
+
+    /**
+     * Number of lookups timed per measurement.
+     */
+    private static final int LOOKUPS = 20_000;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private CollisionBenchmark() {
+    }
+
+    /**
+     * Returns the 2^{@code blocks} strings of {@code blocks} blocks, each
+     * block "Aa" or "BB"; they all have the same hash code.
+     *
+     * @param blocks
+     *            the number of blocks per string
+     * @return the colliding strings
+     * @requires 0 <= blocks < 31
+     */
+    private static String[] collidingKeys(int blocks) {
+        String[] keys = new String[1 << blocks];
+        for (int i = 0; i < keys.length; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int b = 0; b < blocks; b++) {
+                if ((i & (1 << b)) == 0) {
+                    key.append("Aa");
+                } else {
+                    key.append("BB");
+                }
+            }
+            keys[i] = key.toString();
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the average nanoseconds per {@code value} call on a
+     * {@code Map4} holding all of {@code keys}.
+     *
+     * @param keys
+     *            the keys
+     * @param treeBuckets
+     *            whether tree buckets are on
+     * @return the average time per lookup
+     */
+    private static double nanosPerLookup(String[] keys, boolean treeBuckets) {
+        Map4<String, Integer> m = new Map4<>();
+        m.setTreeBuckets(treeBuckets);
+        for (int i = 0; i < keys.length; i++) {
+            m.add(keys[i], i);
+        }
+
+        long sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += m.value(keys[(i * 7919) % keys.length]);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assert sum >= 0;
+        return (double) elapsed / LOOKUPS;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        // Runs once untimed so that both paths are compiled before measuring
+        nanosPerLookup(collidingKeys(MIN_BLOCKS), false);
+        nanosPerLookup(collidingKeys(MIN_BLOCKS), true);
+
+        out.println("keys\tlist ns/lookup\ttree ns/lookup");
+        for (int blocks = MIN_BLOCKS; blocks <= MAX_BLOCKS; blocks++) {
+            String[] keys = collidingKeys(blocks);
+            out.println(keys.length + "\t" + nanosPerLookup(keys, false) + "\t"
+                    + nanosPerLookup(keys, true));
+        }
+
+        out.close();
+    }
+
+}
@@ -0,0 +1,117 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import components.map.Map.Pair;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Measures word-counting throughput into one shared {@code ConcurrentMap4}
+ * with 1, 2, 4, ... threads up to the number of available processors. Each
+ * thread counts its own slice of a fixed stream of words with
+ * {@code merge(word, 1, Integer::sum)}, and the totals are checked at the end.
+ *
+ * @author Sean-Paul Billups, Michael Hu
+ *
+ */
+public final class ConcurrentMap4Benchmark {
+
+    /**
+     * Total number of words counted in each run.
+     */
+    private static final int WORDS = 4_000_000;
+
+    /**
+     * Number of distinct words.
+     */
+    private static final int VOCABULARY = 50_000;
+
+    /**
+     * Seed for the word stream, so every run counts the same words.
+     */
+    private static final long SEED = 2231L;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ConcurrentMap4Benchmark() {
+    }
+
+    /**
+     * Counts {@code words} into a new map using {@code threads} threads and
+     * returns the elapsed nanoseconds.
+     *
+     * @param words
+     *            the word stream
+     * @param threads
+     *            the number of threads
+     * @return the elapsed time
+     * @throws InterruptedException
+     *             if interrupted while waiting for the workers
+     */
+    private static long run(String[] words, int threads) throws InterruptedException {
+        ConcurrentMap4<String, Integer> counts = new ConcurrentMap4<>();
+        List<Thread> workers = new ArrayList<>();
+        int slice = words.length / threads;
+
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            final int from = t * slice;
+            final int to = (t == threads - 1) ? words.length : from + slice;
+            Thread worker = new Thread(() -> {
+                for (int i = from; i < to; i++) {
+                    counts.merge(words[i], 1, Integer::sum);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // Checks that no increment was lost
+        long total = 0;
+        for (Pair<String, Integer> p : counts) {
+            total += p.value();
+        }
+        if (total != words.length) {
+            throw new AssertionError("lost updates: " + total + " != " + words.length);
+        }
+        return elapsed;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     * @throws InterruptedException
+     *             if interrupted while waiting for the workers
+     */
+    public static void main(String[] args) throws InterruptedException {
+        SimpleWriter out = new SimpleWriter1L();
+
+        Random random = new Random(SEED);
+        String[] words = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            words[i] = "w" + random.nextInt(VOCABULARY);
+        }
+
+        // Warms up the code paths before measuring
+        run(words, 1);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        out.println("threads\tms\tMwords/s");
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            long nanos = run(words, threads);
+            out.println(threads + "\t" + (nanos / 1_000_000) + "\t"
+                    + (WORDS * 1_000.0 / nanos));
+        }
+
+        out.close();
+    }
+
+}
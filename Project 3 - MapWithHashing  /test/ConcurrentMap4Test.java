@@ -0,0 +1,135 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code ConcurrentMap4}.
+ */
+public class ConcurrentMap4Test extends MapTest {
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new ConcurrentMap4<String, String>();
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Tests that an iteration overlapping table growth in another thread
+     * still reports every pair present throughout, exactly once.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting for the writer
+     */
+    @Test
+    public final void testIteratorAcrossGrowth() throws InterruptedException {
+        /*
+         * Set up variables
+         */
+        final int n = 100;
+        ConcurrentMap4<String, String> m = new ConcurrentMap4<>(8, 2);
+        for (int i = 0; i < n; i++) {
+            m.add("k" + i, "v" + i);
+        }
+        int[] seen = new int[n];
+        Thread writer = new Thread(() -> {
+            for (int i = n; i < 20 * n; i++) {
+                m.add("k" + i, "v" + i);
+            }
+        });
+
+        /*
+         * Call methods under test: iterates part of the way, has the writer
+         * grow the table several times, then finishes iterating
+         */
+        Iterator<Map.Pair<String, String>> it = m.iterator();
+        for (int i = 0; i < n / 2; i++) {
+            Map.Pair<String, String> p = it.next();
+            seen[Integer.parseInt(p.key().substring(1))]++;
+        }
+        writer.start();
+        writer.join();
+        while (it.hasNext()) {
+            Map.Pair<String, String> p = it.next();
+            int k = Integer.parseInt(p.key().substring(1));
+            if (k < n) {
+                seen[k]++;
+            }
+        }
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        for (int i = 0; i < n; i++) {
+            assertEquals("k" + i, 1, seen[i]);
+        }
+        assertEquals(20 * n, m.size());
+    }
+
+    /**
+     * Tests that iterations running while other threads add keys, and so grow
+     * the table, each report every pair present before they started, exactly
+     * once.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting for the writers
+     */
+    @Test
+    public final void testIteratorDuringConcurrentGrowth() throws InterruptedException {
+        /*
+         * Set up variables
+         */
+        final int n = 200;
+        final int writers = 4;
+        ConcurrentMap4<String, String> m = new ConcurrentMap4<>(8, 2);
+        for (int i = 0; i < n; i++) {
+            m.add("k" + i, "v" + i);
+        }
+        Thread[] threads = new Thread[writers];
+        for (int t = 0; t < writers; t++) {
+            final int id = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50 * n; i++) {
+                    m.add("w" + id + "_" + i, "x");
+                }
+            });
+        }
+
+        /*
+         * Call methods under test while the writers run
+         */
+        for (Thread t : threads) {
+            t.start();
+        }
+        boolean allOnce = true;
+        for (int round = 0; round < 20; round++) {
+            int[] seen = new int[n];
+            for (Map.Pair<String, String> p : m) {
+                if (p.key().startsWith("k")) {
+                    seen[Integer.parseInt(p.key().substring(1))]++;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                allOnce = allOnce && seen[i] == 1;
+            }
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(true, allOnce);
+        assertEquals(n + writers * 50 * n, m.size());
+    }
+
+}
@@ -0,0 +1,181 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Customized JUnit test fixture for {@code LinkedMap4}, in access order, with
+ * tests of its order and eviction.
+ */
+public class LinkedMap4Test extends MapTest {
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new LinkedMap4<String, String>(true);
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Returns the keys of {@code m} in iteration order, separated by spaces.
+     *
+     * @param m
+     *            the map
+     * @return the keys of m
+     */
+    private static String keys(Map<String, String> m) {
+        StringBuilder keys = new StringBuilder();
+        for (Map.Pair<String, String> p : m) {
+            keys.append(p.key()).append(' ');
+        }
+        return keys.toString().trim();
+    }
+
+    /**
+     * Tests that insertion order survives value lookups and replaceValue.
+     */
+    @Test
+    public final void testInsertionOrder() {
+        /*
+         * Set up variables and call methods under test
+         */
+        Map<String, String> m = new LinkedMap4<>();
+        m.add("c", "3");
+        m.add("a", "1");
+        m.add("b", "2");
+        m.value("c");
+        m.replaceValue("a", "4");
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("c a b", keys(m));
+        assertEquals("c", m.removeAny().key());
+    }
+
+    /**
+     * Tests that value lookups move a key to the end in access order.
+     */
+    @Test
+    public final void testAccessOrder() {
+        /*
+         * Set up variables and call methods under test
+         */
+        Map<String, String> m = new LinkedMap4<>(true);
+        m.add("c", "3");
+        m.add("a", "1");
+        m.add("b", "2");
+        m.value("c");
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("a b c", keys(m));
+        assertEquals("a", m.removeAny().key());
+    }
+
+    /**
+     * Tests LRU eviction and the eviction listener.
+     */
+    @Test
+    public final void testEviction() {
+        /*
+         * Set up variables
+         */
+        Queue<String> evicted = new Queue1L<>();
+        Map<String, String> m = new LinkedMap4<>(true, 2,
+                p -> evicted.enqueue(p.key()));
+
+        /*
+         * Call methods under test
+         */
+        m.add("a", "1");
+        m.add("b", "2");
+        m.value("a");
+        m.add("c", "3");
+        m.add("d", "4");
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("c d", keys(m));
+        assertEquals("<b,a>", evicted.toString());
+    }
+
+    /**
+     * Tests that newInstance and clear keep the order, maximum size, and
+     * eviction listener.
+     */
+    @Test
+    public final void testNewInstanceAndClearKeepConfiguration() {
+        /*
+         * Set up variables
+         */
+        StringBuilder evicted = new StringBuilder();
+        Map<String, String> m = new LinkedMap4<>(true, 2,
+                p -> evicted.append(p.key()));
+        m.add("x", "0");
+
+        /*
+         * Call methods under test
+         */
+        Map<String, String> fresh = m.newInstance();
+        m.clear();
+        for (Map<String, String> lru : Arrays.asList(fresh, m)) {
+            lru.add("a", "1");
+            lru.add("b", "2");
+            lru.value("a");
+            lru.add("c", "3");
+        }
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("a c", keys(fresh));
+        assertEquals("a c", keys(m));
+        assertEquals("bb", evicted.toString());
+    }
+
+    /**
+     * Tests that reading values while iterating in access order visits each
+     * pair once, and leaves the keys in the order they were read.
+     */
+    @Test
+    public final void testValueWhileIteratingInAccessOrder() {
+        /*
+         * Set up variables
+         */
+        Map<String, String> m = new LinkedMap4<>(true);
+        m.add("c", "3");
+        m.add("a", "1");
+        m.add("b", "2");
+        StringBuilder visited = new StringBuilder();
+
+        /*
+         * Call methods under test, reading the next key before it is visited
+         */
+        for (Map.Pair<String, String> p : m) {
+            visited.append(p.key()).append(m.value(p.key())).append(' ');
+            if (p.key().equals("c")) {
+                m.value("a");
+            }
+        }
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("c3 a1 b2 ", visited.toString());
+        assertEquals("c a b", keys(m));
+        assertEquals(3, m.size());
+    }
+
+}
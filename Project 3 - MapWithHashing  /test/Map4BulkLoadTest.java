@@ -0,0 +1,206 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map.Pair;
+import components.map.Map1L;
+
+/**
+ * JUnit test fixture for the bulk loading methods of {@code Map4},
+ * {@code ensureCapacity} and {@code addAll}. The number of buckets is read
+ * off {@code bucketLengthHistogram}, whose entries add up to it; a rehash
+ * always changes it.
+ *
+ * @author Sean-Paul Billups, Michael Hu
+ *
+ */
+public class Map4BulkLoadTest {
+
+    /**
+     * Load factor above which the maps tested grow.
+     */
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    /**
+     * Reports the number of buckets in the hash table of {@code m}.
+     *
+     * @param m
+     *            the map
+     * @return the number of buckets
+     */
+    private static int buckets(Map4<?, ?> m) {
+        int buckets = 0;
+        for (int count : m.bucketLengthHistogram()) {
+            buckets += count;
+        }
+        return buckets;
+    }
+
+    /**
+     * Creates and returns a {@code Map1L} holding keys {@code from} to
+     * {@code to - 1}, each with value "v" and the same number.
+     *
+     * @param from
+     *            the first key
+     * @param to
+     *            one past the last key
+     * @return the map
+     */
+    private static Map<Integer, String> createRef(int from, int to) {
+        Map<Integer, String> ref = new Map1L<>();
+        for (int i = from; i < to; i++) {
+            ref.add(i, "v" + i);
+        }
+        return ref;
+    }
+
+    /**
+     * Tests that after ensureCapacity(n), n adds never rehash, with table
+     * sizes kept odd and kept powers of 2.
+     */
+    @Test
+    public final void testEnsureCapacityThenAdd() {
+        final int n = 1_000;
+        for (boolean powerOfTwo : new boolean[] { false, true }) {
+            /*
+             * Set up variables
+             */
+            Map4<Integer, String> m = new Map4<>(1, MAX_LOAD_FACTOR, 0, powerOfTwo);
+
+            /*
+             * Call methods under test
+             */
+            m.ensureCapacity(n);
+            int presized = buckets(m);
+            for (int i = 0; i < n; i++) {
+                m.add(i, "v" + i);
+                assertEquals(presized, buckets(m));
+            }
+
+            /*
+             * Assert that values of variables match expectations
+             */
+            assertTrue(n <= MAX_LOAD_FACTOR * presized);
+            if (powerOfTwo) {
+                assertEquals(1, Integer.bitCount(presized));
+            } else {
+                assertEquals(1, presized % 2);
+            }
+            assertEquals(createRef(0, n), m);
+        }
+    }
+
+    /**
+     * Tests that ensureCapacity leaves a table already large enough alone.
+     */
+    @Test
+    public final void testEnsureCapacityAlreadyLargeEnough() {
+        /*
+         * Set up variables
+         */
+        final int n = 10;
+        Map4<Integer, String> m = new Map4<>();
+        m.add(1, "v1");
+        int before = buckets(m);
+
+        /*
+         * Call method under test
+         */
+        m.ensureCapacity(n);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(before, buckets(m));
+        assertEquals(createRef(1, 2), m);
+    }
+
+    /**
+     * Tests addAll from another map into a non-empty map, with an exact
+     * expected size: the table is sized once, as ensureCapacity would size it.
+     */
+    @Test
+    public final void testAddAllFromMap() {
+        /*
+         * Set up variables
+         */
+        final int existing = 3;
+        final int n = 500;
+        Map4<Integer, String> m = new Map4<>(1);
+        Map4<Integer, String> twin = new Map4<>(1);
+        for (int i = 0; i < existing; i++) {
+            m.add(i, "v" + i);
+            twin.add(i, "v" + i);
+        }
+        Map<Integer, String> source = createRef(existing, existing + n);
+        twin.ensureCapacity(existing + n);
+
+        /*
+         * Call method under test
+         */
+        m.addAll(source, source.size());
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(buckets(twin), buckets(m));
+        assertEquals(createRef(0, existing + n), m);
+        assertEquals(createRef(existing, existing + n), source);
+    }
+
+    /**
+     * Tests addAll with an expected size that is too small: the map still
+     * ends up with every pair, growing as add would.
+     */
+    @Test
+    public final void testAddAllUnderestimate() {
+        /*
+         * Set up variables
+         */
+        final int n = 2_000;
+        Map4<Integer, String> m = new Map4<>(1);
+        Map<Integer, String> source = createRef(0, n);
+
+        /*
+         * Call method under test
+         */
+        m.addAll(source, 1);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertTrue(n <= MAX_LOAD_FACTOR * buckets(m));
+        assertEquals(createRef(0, n), m);
+    }
+
+    /**
+     * Tests that addAll rejects, when assertions are enabled, a key that is
+     * already in the map.
+     */
+    @Test(expected = AssertionError.class)
+    public final void testAddAllKeyAlreadyInMap() {
+        Map4<Integer, String> m = new Map4<>();
+        m.add(7, "v7");
+        m.addAll(createRef(5, 10), 5);
+    }
+
+    /**
+     * Tests that addAll rejects, when assertions are enabled, a key that
+     * appears twice in the pairs.
+     */
+    @Test(expected = AssertionError.class)
+    public final void testAddAllDuplicateKeyInPairs() {
+        Map4<Integer, String> m = new Map4<>();
+        List<Pair<Integer, String>> pairs = new ArrayList<>();
+        pairs.add(new ImmutablePair<>(1, "a"));
+        pairs.add(new ImmutablePair<>(2, "b"));
+        pairs.add(new ImmutablePair<>(1, "c"));
+        m.addAll(pairs, pairs.size());
+    }
+
+}
@@ -0,0 +1,201 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Spliterator;
+import java.util.stream.StreamSupport;
+
+import org.junit.Test;
+
+import components.map.Map.Pair;
+
+/**
+ * JUnit test fixture for the {@code Spliterator} of {@code Map4}.
+ *
+ * @author Sean-Paul Billups, Michael Hu
+ *
+ */
+public class Map4SpliteratorTest {
+
+    /**
+     * Number of pairs in the maps tested.
+     */
+    private static final int PAIRS = 1_000;
+
+    /**
+     * Characteristics the {@code Spliterator} claims.
+     */
+    private static final int CHARACTERISTICS = Spliterator.SIZED
+            | Spliterator.SUBSIZED | Spliterator.DISTINCT | Spliterator.NONNULL;
+
+    /**
+     * Creates and returns a {@code Map4} holding keys "k0" to "k{n-1}", each
+     * with value "v" and the same number.
+     *
+     * @param n
+     *            the number of pairs
+     * @return the map
+     */
+    private static Map4<String, String> createMap(int n) {
+        Map4<String, String> m = new Map4<>();
+        for (int i = 0; i < n; i++) {
+            m.add("k" + i, "v" + i);
+        }
+        return m;
+    }
+
+    /**
+     * Splits {@code whole} until no piece splits any further, checking at
+     * each split that the sizes of the two pieces add up to the size before
+     * and that both claim the expected characteristics, then traverses every
+     * piece with {@code forEachRemaining} and returns how many times each
+     * key was reported.
+     *
+     * @param whole
+     *            the Spliterator to split
+     * @return the number of times each key was reported
+     */
+    private static HashMap<String, Integer> splitAndTraverse(
+            Spliterator<Pair<String, String>> whole) {
+        HashMap<String, Integer> seen = new HashMap<>();
+        Deque<Spliterator<Pair<String, String>>> pieces = new ArrayDeque<>();
+        pieces.push(whole);
+        while (!pieces.isEmpty()) {
+            Spliterator<Pair<String, String>> piece = pieces.pop();
+            long before = piece.estimateSize();
+            Spliterator<Pair<String, String>> upper = piece.trySplit();
+            if (upper != null) {
+                assertEquals(before, piece.estimateSize() + upper.estimateSize());
+                assertEquals(CHARACTERISTICS, piece.characteristics());
+                assertEquals(CHARACTERISTICS, upper.characteristics());
+                pieces.push(piece);
+                pieces.push(upper);
+            } else {
+                long[] count = new long[1];
+                piece.forEachRemaining(p -> {
+                    assertEquals("v" + p.key().substring(1), p.value());
+                    seen.merge(p.key(), 1, Integer::sum);
+                    count[0]++;
+                });
+                assertEquals(before, count[0]);
+                assertEquals(0, piece.estimateSize());
+            }
+        }
+        return seen;
+    }
+
+    /**
+     * Tests that splitting down to single buckets keeps the sizes exact and
+     * reports every pair of the map exactly once.
+     */
+    @Test
+    public final void testSplitRepeatedly() {
+        /*
+         * Set up variables
+         */
+        Map4<String, String> m = createMap(PAIRS);
+        Spliterator<Pair<String, String>> whole = m.spliterator();
+
+        /*
+         * Call method under test
+         */
+        assertEquals(PAIRS, whole.estimateSize());
+        assertEquals(CHARACTERISTICS, whole.characteristics());
+        HashMap<String, Integer> seen = splitAndTraverse(whole);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(PAIRS, seen.size());
+        for (int i = 0; i < PAIRS; i++) {
+            assertEquals(Integer.valueOf(1), seen.get("k" + i));
+        }
+        assertEquals(PAIRS, m.size());
+    }
+
+    /**
+     * Tests splitting a Spliterator that has already reported some pairs.
+     */
+    @Test
+    public final void testSplitAfterAdvancing() {
+        /*
+         * Set up variables
+         */
+        final int advanced = 10;
+        Map4<String, String> m = createMap(PAIRS);
+        Spliterator<Pair<String, String>> whole = m.spliterator();
+        HashMap<String, Integer> seenFirst = new HashMap<>();
+
+        /*
+         * Call methods under test
+         */
+        for (int i = 0; i < advanced; i++) {
+            whole.tryAdvance(p -> seenFirst.merge(p.key(), 1, Integer::sum));
+        }
+        long left = whole.estimateSize();
+        HashMap<String, Integer> seen = splitAndTraverse(whole);
+        for (String key : seenFirst.keySet()) {
+            seen.merge(key, 1, Integer::sum);
+        }
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(PAIRS - advanced, left);
+        assertEquals(PAIRS, seen.size());
+        for (int i = 0; i < PAIRS; i++) {
+            assertEquals(Integer.valueOf(1), seen.get("k" + i));
+        }
+    }
+
+    /**
+     * Tests the Spliterator of an empty map.
+     */
+    @Test
+    public final void testEmpty() {
+        /*
+         * Set up variables
+         */
+        Map4<String, String> m = createMap(0);
+
+        /*
+         * Call methods under test
+         */
+        Spliterator<Pair<String, String>> s = m.spliterator();
+        boolean advanced = s.tryAdvance(p -> {
+        });
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(0, s.estimateSize());
+        assertEquals(false, advanced);
+        assertEquals(0, splitAndTraverse(m.spliterator()).size());
+    }
+
+    /**
+     * Tests that a parallel stream over the map reports every pair once.
+     */
+    @Test
+    public final void testParallelStream() {
+        /*
+         * Set up variables
+         */
+        Map4<String, String> m = createMap(PAIRS);
+
+        /*
+         * Call method under test
+         */
+        long distinctKeys = StreamSupport.stream(m.spliterator(), true)
+                .map(Pair::key).distinct().count();
+        long pairs = StreamSupport.stream(m.spliterator(), true).count();
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(PAIRS, distinctKeys);
+        assertEquals(PAIRS, pairs);
+    }
+
+}
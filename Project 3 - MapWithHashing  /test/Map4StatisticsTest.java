@@ -0,0 +1,130 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for the lookup statistics of {@code Map4}. The map has
+ * a power-of-2 table of 8 buckets, so small {@code Integer} keys {@code k}
+ * land in bucket {@code k mod 8}: keys 0, 8, and 16 share bucket 0, and key 1
+ * is alone in bucket 1.
+ *
+ * @author Sean-Paul Billups, Michael Hu
+ *
+ */
+public class Map4StatisticsTest {
+
+    /**
+     * Creates and returns a {@code Map4} holding keys 0, 8, 16, and 1, with
+     * statistics enabled.
+     *
+     * @return the map
+     */
+    private static Map4<Integer, String> createMap() {
+        final int tableSize = 8;
+        final double maxLoadFactor = 0.75;
+        final double minLoadFactor = 0.25;
+        Map4<Integer, String> m = new Map4<>(tableSize, maxLoadFactor, minLoadFactor,
+                true);
+        m.add(0, "a");
+        m.add(8, "b");
+        m.add(16, "c");
+        m.add(1, "d");
+        m.setStatisticsEnabled(true);
+        return m;
+    }
+
+    /**
+     * Tests that each lookup method counts one lookup and the length of the
+     * bucket it searches, and that add and remove count nothing (even with
+     * their precondition checks enabled).
+     */
+    @Test
+    public final void testLookupsAndProbes() {
+        /*
+         * Set up variables
+         */
+        Map4<Integer, String> m = createMap();
+
+        /*
+         * Call methods under test
+         */
+        m.hasKey(0);
+        m.value(1);
+        m.valueOrDefault(9, "x");
+        m.hasKey(2);
+        m.merge(8, "e", String::concat);
+        m.add(24, "f");
+        m.remove(24);
+
+        /*
+         * Assert that values of variables match expectations: probes are
+         * 3 + 1 + 1 + 0 + 3
+         */
+        assertEquals(5, m.lookups());
+        assertEquals(8.0 / 5, m.averageProbes(), 1e-9);
+    }
+
+    /**
+     * Tests that enabling statistics resets the counts, and that nothing is
+     * counted while they are disabled.
+     */
+    @Test
+    public final void testResetAndDisable() {
+        /*
+         * Set up variables
+         */
+        Map4<Integer, String> m = createMap();
+        m.hasKey(0);
+        m.hasKey(1);
+
+        /*
+         * Call methods under test
+         */
+        m.setStatisticsEnabled(false);
+        m.hasKey(0);
+        long lookupsWhileDisabled = m.lookups();
+        m.setStatisticsEnabled(true);
+        long lookupsAfterReset = m.lookups();
+        double probesAfterReset = m.averageProbes();
+        m.value(16);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(2, lookupsWhileDisabled);
+        assertEquals(0, lookupsAfterReset);
+        assertEquals(0.0, probesAfterReset, 0);
+        assertEquals(1, m.lookups());
+        assertEquals(3.0, m.averageProbes(), 1e-9);
+    }
+
+    /**
+     * Tests that reportStatisticsEvery reports once per interval of lookups.
+     */
+    @Test
+    public final void testReportStatisticsEvery() {
+        /*
+         * Set up variables
+         */
+        Map4<Integer, String> m = createMap();
+        List<String> reports = new ArrayList<>();
+
+        /*
+         * Call methods under test
+         */
+        m.reportStatisticsEvery(2, reports::add);
+        for (int i = 0; i < 5; i++) {
+            m.hasKey(i);
+        }
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(2, reports.size());
+        assertEquals(true, reports.get(1).contains(" lookups=4 "));
+    }
+
+}
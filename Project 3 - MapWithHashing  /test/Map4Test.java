@@ -1,6 +1,14 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+
+import org.junit.Test;
+
 import components.map.Map;
+import components.map.Map.Pair;
 import components.map.Map1L;
-import components.map.Map4;
 
 /**
  * Customized JUnit test fixture for {@code Map4} using default constructor.
@@ -17,4 +25,278 @@ public class Map4Test extends MapTest {
         return new Map1L<String, String>();
     }
 
+    /**
+     * Tests removeAny until the map is empty when bucket 0, where a search
+     * from the front of the table would start, stays empty: the default table
+     * has 101 buckets, and keys 1 to 50 hash to buckets 1 to 50.
+     */
+    @Test
+    public final void testRemoveAnyUntilEmptyWithBucketZeroEmpty() {
+        /*
+         * Set up variables
+         */
+        final int n = 50;
+        Map4<Integer, String> m = new Map4<>();
+        for (int i = 1; i <= n; i++) {
+            m.add(i, "v" + i);
+        }
+        HashSet<Integer> removed = new HashSet<>();
+
+        /*
+         * Call method under test
+         */
+        while (m.size() > 0) {
+            int sizeBefore = m.size();
+            Pair<Integer, String> p = m.removeAny();
+
+            /*
+             * Assert that values of variables match expectations
+             */
+            assertEquals("v" + p.key(), p.value());
+            assertEquals(true, removed.add(p.key()));
+            assertEquals(false, m.hasKey(p.key()));
+            assertEquals(sizeBefore - 1, m.size());
+        }
+        assertEquals(n, removed.size());
+    }
+
+    /**
+     * Tests removeAny interleaved with add, so that buckets the search has
+     * already passed fill up again.
+     */
+    @Test
+    public final void testRemoveAnyInterleavedWithAdd() {
+        /*
+         * Set up variables
+         */
+        final int n = 300;
+        Map4<Integer, String> m = new Map4<>();
+        for (int i = 1; i <= n; i++) {
+            m.add(i, "v" + i);
+        }
+        HashSet<Integer> present = new HashSet<>();
+        for (int i = 1; i <= n; i++) {
+            present.add(i);
+        }
+
+        /*
+         * Call methods under test: removes two, adds one back, until empty
+         */
+        int next = n + 1;
+        while (m.size() > 0) {
+            assertEquals(true, present.remove(m.removeAny().key()));
+            if (m.size() > 0) {
+                assertEquals(true, present.remove(m.removeAny().key()));
+            }
+            if (next % 3 != 0 && m.size() > 0) {
+                m.add(next, "v" + next);
+                present.add(next);
+            }
+            next++;
+        }
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(0, present.size());
+    }
+
+    /**
+     * Creates and returns a {@code Map4<String, String>} with the given
+     * entries.
+     *
+     * @param args
+     *            the (key, value) pairs for the map
+     * @return the constructed map
+     * @requires <pre>
+     * [args.length is even]  and
+     * [the 'key' entries in args are unique]
+     * </pre>
+     * @ensures createMap4 = [pairs in args]
+     */
+    private static Map4<String, String> createMap4(String... args) {
+        assert args.length % 2 == 0 : "Violation of: args.length is even";
+        Map4<String, String> map = new Map4<>();
+        for (int i = 0; i < args.length; i += 2) {
+            map.add(args[i], args[i + 1]);
+        }
+        return map;
+    }
+
+    /**
+     * Tests merge with a key that is not in the map.
+     */
+    @Test
+    public final void testMergeAbsent() {
+        /*
+         * Set up variables
+         */
+        Map4<String, String> m = createMap4("red", "1", "blue", "2");
+        Map4<String, String> mExpected = createMap4("red", "1", "blue", "2",
+                "green", "3");
+
+        /*
+         * Call method under test
+         */
+        String result = m.merge("green", "3", String::concat);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("3", result);
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Tests merge with a key that is in the map.
+     */
+    @Test
+    public final void testMergePresent() {
+        /*
+         * Set up variables
+         */
+        Map4<String, String> m = createMap4("red", "1", "blue", "2");
+        Map4<String, String> mExpected = createMap4("red", "1", "blue", "2+5");
+
+        /*
+         * Call method under test
+         */
+        String result = m.merge("blue", "5", (old, v) -> old + "+" + v);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("2+5", result);
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Tests merge as a counter: the remapping is applied to the value left by
+     * the previous merge each time.
+     */
+    @Test
+    public final void testMergeRemapping() {
+        /*
+         * Set up variables
+         */
+        final int n = 500;
+        final int words = 7;
+        Map4<Integer, Integer> counts = new Map4<>();
+
+        /*
+         * Call method under test
+         */
+        for (int i = 0; i < n; i++) {
+            counts.merge(i % words, 1, Integer::sum);
+        }
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(words, counts.size());
+        for (int w = 0; w < words; w++) {
+            int expected = n / words;
+            if (w < n % words) {
+                expected++;
+            }
+            assertEquals(Integer.valueOf(expected), counts.value(w));
+        }
+    }
+
+    /**
+     * Tests valueOrDefault with a key that is in the map and one that is not.
+     */
+    @Test
+    public final void testValueOrDefault() {
+        /*
+         * Set up variables
+         */
+        Map4<String, String> m = createMap4("red", "1", "blue", "2");
+        Map4<String, String> mExpected = createMap4("red", "1", "blue", "2");
+
+        /*
+         * Call method under test
+         */
+        String present = m.valueOrDefault("blue", "none");
+        String absent = m.valueOrDefault("green", "none");
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("2", present);
+        assertEquals("none", absent);
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Tests replaceValue, which updates the entry in place.
+     */
+    @Test
+    public final void testReplaceValue() {
+        /*
+         * Set up variables
+         */
+        Map4<String, String> m = createMap4("red", "1", "blue", "2");
+        Map4<String, String> mExpected = createMap4("red", "1", "blue", "7");
+
+        /*
+         * Call method under test
+         */
+        String old = m.replaceValue("blue", "7");
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("2", old);
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Tests that the iterator fails fast when the map changes between calls
+     * to next.
+     */
+    @Test(expected = ConcurrentModificationException.class)
+    public final void testIteratorFailsFast() {
+        Map4<String, String> m = createMap4("red", "1", "blue", "2");
+        Iterator<Pair<String, String>> it = m.iterator();
+        it.next();
+        m.add("green", "3");
+        it.next();
+    }
+
+    /**
+     * Tests that forEachEntry fails fast when the action changes the map.
+     */
+    @Test(expected = ConcurrentModificationException.class)
+    public final void testForEachEntryFailsFast() {
+        Map4<String, String> m = createMap4("red", "1", "blue", "2");
+        m.forEachEntry((k, v) -> m.merge(k, "!", String::concat));
+    }
+
+    /**
+     * Tests forEachEntry and the inherited Iterable.forEach, both called with
+     * implicitly typed lambdas.
+     */
+    @Test
+    public final void testForEachEntryAndForEach() {
+        /*
+         * Set up variables
+         */
+        Map4<String, String> m = createMap4("red", "1", "blue", "2");
+        Map<String, String> fromEntries = new Map1L<>();
+        Map<String, String> fromPairs = new Map1L<>();
+
+        /*
+         * Call methods under test
+         */
+        m.forEachEntry((k, v) -> fromEntries.add(k, v));
+        m.forEach(p -> fromPairs.add(p.key(), p.value()));
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(m, fromEntries);
+        assertEquals(m, fromPairs);
+    }
+
 }
@@ -1,6 +1,5 @@
 import components.map.Map;
 import components.map.Map1L;
-import components.map.Map4;
 
 /**
  * Customized JUnit test fixture for {@code Map4} using non-default constructor
@@ -0,0 +1,36 @@
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map4} using a power-of-2 hash table
+ * with buckets selected by masking.
+ */
+public class Map4TestPowerOfTwo extends MapTest {
+
+    /**
+     * Size of hash table to be used in tests; rounded up to 16.
+     */
+    private static final int TEST_HASH_TABLE_SIZE = 10;
+
+    /**
+     * Load factor above which the hash table grows in tests.
+     */
+    private static final double TEST_MAX_LOAD_FACTOR = 0.75;
+
+    /**
+     * Load factor below which the hash table shrinks in tests.
+     */
+    private static final double TEST_MIN_LOAD_FACTOR = 0.25;
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map4<String, String>(TEST_HASH_TABLE_SIZE, TEST_MAX_LOAD_FACTOR,
+                TEST_MIN_LOAD_FACTOR, true);
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+}
@@ -0,0 +1,36 @@
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map4} using a hash table of size 1
+ * with tight load factors, so that adding and removing entries rehashes.
+ */
+public class Map4TestResize extends MapTest {
+
+    /**
+     * Initial size of hash table to be used in tests.
+     */
+    private static final int TEST_HASH_TABLE_SIZE = 1;
+
+    /**
+     * Load factor above which the hash table grows in tests.
+     */
+    private static final double TEST_MAX_LOAD_FACTOR = 0.5;
+
+    /**
+     * Load factor below which the hash table shrinks in tests.
+     */
+    private static final double TEST_MIN_LOAD_FACTOR = 0.2;
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map4<String, String>(TEST_HASH_TABLE_SIZE, TEST_MAX_LOAD_FACTOR,
+                TEST_MIN_LOAD_FACTOR);
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+}
@@ -0,0 +1,301 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map.Pair;
+import components.map.Map1L;
+
+/**
+ * JUnit test fixture for the tree buckets of {@code Map4}. All the keys used
+ * are strings of five blocks, each "Aa" or "BB", which share one hash code,
+ * so they all land in one bucket. Which kind of bucket that is shows in the
+ * lookup statistics: a list bucket of n keys counts n probes per lookup and a
+ * tree bucket counts only the bit length of n.
+ *
+ * @author Sean-Paul Billups, Michael Hu
+ *
+ */
+public class Map4TreeBucketTest {
+
+    /**
+     * Number of colliding keys.
+     */
+    private static final int KEYS = 32;
+
+    /**
+     * Number of blocks per key.
+     */
+    private static final int BLOCKS = 5;
+
+    /**
+     * Returns the {@code KEYS} strings of {@code BLOCKS} blocks, each block
+     * "Aa" or "BB"; they all have the same hash code.
+     *
+     * @return the colliding strings
+     */
+    private static String[] collidingKeys() {
+        String[] keys = new String[KEYS];
+        for (int i = 0; i < keys.length; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int b = 0; b < BLOCKS; b++) {
+                if ((i & (1 << b)) == 0) {
+                    key.append("Aa");
+                } else {
+                    key.append("BB");
+                }
+            }
+            keys[i] = key.toString();
+        }
+        return keys;
+    }
+
+    /**
+     * Reports the probes one lookup of {@code key} in {@code m} counts,
+     * leaving statistics enabled and reset.
+     *
+     * @param <K>
+     *            type of keys
+     * @param m
+     *            the map
+     * @param key
+     *            the key to look up
+     * @return the probes counted
+     */
+    private static <K> double probes(Map4<K, Integer> m, K key) {
+        m.setStatisticsEnabled(true);
+        m.hasKey(key);
+        double probes = m.averageProbes();
+        m.setStatisticsEnabled(true);
+        return probes;
+    }
+
+    /**
+     * Checks that {@code m} holds the same pairs as {@code ref}, through
+     * {@code hasKey}, {@code value}, and iteration.
+     *
+     * @param <K>
+     *            type of keys
+     * @param ref
+     *            the reference map
+     * @param m
+     *            the map checked
+     * @param keys
+     *            keys to look up, in the map or not
+     */
+    private static <K> void assertSamePairs(Map<K, Integer> ref, Map4<K, Integer> m,
+            K[] keys) {
+        assertEquals(ref.size(), m.size());
+        for (K key : keys) {
+            assertEquals(ref.hasKey(key), m.hasKey(key));
+            if (ref.hasKey(key)) {
+                assertEquals(ref.value(key), m.value(key));
+            }
+        }
+        Map<K, Integer> seen = new Map1L<>();
+        for (Pair<K, Integer> p : m) {
+            assertEquals(false, seen.hasKey(p.key()));
+            seen.add(p.key(), p.value());
+        }
+        assertEquals(ref, seen);
+    }
+
+    /**
+     * Tests that a bucket becomes a tree once it passes 8 keys and becomes a
+     * list again once it shrinks to 6, matching a reference map throughout.
+     */
+    @Test
+    public final void testTreeifyAndUntreeify() {
+        /*
+         * Set up variables
+         */
+        final int treeifyAt = 9;
+        final int untreeifyAt = 6;
+        String[] keys = collidingKeys();
+        Map4<String, Integer> m = new Map4<>();
+        m.setTreeBuckets(true);
+        Map<String, Integer> ref = new Map1L<>();
+
+        /*
+         * Call methods under test and assert that values of variables match
+         * expectations: list to tree as the bucket grows
+         */
+        for (int i = 0; i < keys.length; i++) {
+            m.add(keys[i], i);
+            ref.add(keys[i], i);
+            assertSamePairs(ref, m, keys);
+            int length = i + 1;
+            double expected = length;
+            if (length >= treeifyAt) {
+                expected = Integer.SIZE - Integer.numberOfLeadingZeros(length);
+            }
+            assertEquals(expected, probes(m, keys[0]), 0);
+        }
+
+        /*
+         * Then tree to list as it shrinks
+         */
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(ref.remove(keys[i]), m.remove(keys[i]));
+            assertSamePairs(ref, m, keys);
+            int length = keys.length - i - 1;
+            double expected = length;
+            if (length > untreeifyAt) {
+                expected = Integer.SIZE - Integer.numberOfLeadingZeros(length);
+            }
+            if (length > 0) {
+                assertEquals(expected, probes(m, keys[keys.length - 1]), 0);
+            }
+        }
+        assertEquals(0, m.size());
+    }
+
+    /**
+     * Tests removeAny on a tree bucket until the map is empty, through the
+     * switch back to a list bucket.
+     */
+    @Test
+    public final void testRemoveAnyFromTreeBucket() {
+        /*
+         * Set up variables
+         */
+        String[] keys = collidingKeys();
+        Map4<String, Integer> m = new Map4<>();
+        m.setTreeBuckets(true);
+        Map<String, Integer> ref = new Map1L<>();
+        for (int i = 0; i < keys.length; i++) {
+            m.add(keys[i], i);
+            ref.add(keys[i], i);
+        }
+
+        /*
+         * Call method under test
+         */
+        while (m.size() > 0) {
+            Pair<String, Integer> p = m.removeAny();
+
+            /*
+             * Assert that values of variables match expectations
+             */
+            assertEquals(ref.remove(p.key()), p);
+            assertSamePairs(ref, m, keys);
+        }
+        assertEquals(0, ref.size());
+    }
+
+    /**
+     * Tests value updates through merge, valueOrDefault, and replaceValue on a
+     * tree bucket.
+     */
+    @Test
+    public final void testUpdatesInTreeBucket() {
+        /*
+         * Set up variables
+         */
+        String[] keys = collidingKeys();
+        Map4<String, Integer> m = new Map4<>();
+        m.setTreeBuckets(true);
+        Map<String, Integer> ref = new Map1L<>();
+        for (int i = 0; i < keys.length; i += 2) {
+            m.add(keys[i], i);
+            ref.add(keys[i], i);
+        }
+
+        /*
+         * Call methods under test
+         */
+        for (int i = 0; i < keys.length; i++) {
+            int expected = 1;
+            if (i % 2 == 0) {
+                expected = i + 1;
+            }
+            assertEquals(Integer.valueOf(expected), m.merge(keys[i], 1, Integer::sum));
+            assertEquals(Integer.valueOf(expected), m.valueOrDefault(keys[i], -1));
+        }
+        assertEquals(Integer.valueOf(1), m.replaceValue(keys[0], 0));
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        for (int i = 0; i < keys.length; i++) {
+            int expected = 1;
+            if (i % 2 == 0) {
+                expected = i + 1;
+                ref.remove(keys[i]);
+            }
+            ref.add(keys[i], expected);
+        }
+        ref.replaceValue(keys[0], 0);
+        assertSamePairs(ref, m, keys);
+    }
+
+    /**
+     * Tests that a key of another class with the same hash code turns the
+     * tree bucket back into a list, since it cannot be compared with the
+     * others.
+     */
+    @Test
+    public final void testKeyOfAnotherClass() {
+        /*
+         * Set up variables
+         */
+        String[] strings = collidingKeys();
+        Object[] keys = new Object[strings.length + 1];
+        Map4<Object, Integer> m = new Map4<>();
+        m.setTreeBuckets(true);
+        Map<Object, Integer> ref = new Map1L<>();
+        for (int i = 0; i < strings.length; i++) {
+            keys[i] = strings[i];
+            m.add(strings[i], i);
+            ref.add(strings[i], i);
+        }
+        Integer other = strings[0].hashCode();
+        keys[strings.length] = other;
+        double treeProbes = probes(m, other);
+
+        /*
+         * Call method under test
+         */
+        m.add(other, -1);
+        ref.add(other, -1);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(Integer.SIZE - Integer.numberOfLeadingZeros(strings.length),
+                treeProbes, 0);
+        assertEquals(strings.length + 1, probes(m, other), 0);
+        assertSamePairs(ref, m, keys);
+    }
+
+    /**
+     * Tests that turning tree buckets off turns every tree bucket back into a
+     * list.
+     */
+    @Test
+    public final void testTreeBucketsOff() {
+        /*
+         * Set up variables
+         */
+        String[] keys = collidingKeys();
+        Map4<String, Integer> m = new Map4<>();
+        m.setTreeBuckets(true);
+        Map<String, Integer> ref = new Map1L<>();
+        for (int i = 0; i < keys.length; i++) {
+            m.add(keys[i], i);
+            ref.add(keys[i], i);
+        }
+
+        /*
+         * Call method under test
+         */
+        m.setTreeBuckets(false);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(keys.length, probes(m, keys[0]), 0);
+        assertSamePairs(ref, m, keys);
+    }
+
+}
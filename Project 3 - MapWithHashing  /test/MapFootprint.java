@@ -0,0 +1,97 @@
+import components.map.Map;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Reports the approximate heap footprint of {@code Map4} and {@code Map5}
+ * holding the same {@code Integer} to {@code Integer} entries. The keys and
+ * values themselves are allocated before measuring, so only the memory taken
+ * by each map's representation is counted.
+ *
+ * @author Sean-Paul Billups, Michael Hu
+ *
+ */
+public final class MapFootprint {
+
+    /**
+     * Numbers of entries to measure.
+     */
+    private static final int[] SIZES = { 1_000, 100_000, 1_000_000 };
+
+    /**
+     * Number of garbage collections requested before reading heap usage.
+     */
+    private static final int GC_ROUNDS = 5;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private MapFootprint() {
+    }
+
+    /**
+     * Returns the number of bytes of heap in use after collecting garbage.
+     *
+     * @return the bytes in use
+     */
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    /**
+     * Fills {@code m} with {@code keys[i] -> keys[i]} and returns the number of
+     * bytes of heap it grew by.
+     *
+     * @param m
+     *            the map to fill
+     * @param keys
+     *            the keys (also used as values)
+     * @return the bytes used by the filled map
+     * @updates m
+     * @requires m = {}  and  [entries of keys are distinct]
+     */
+    private static long footprint(Map<Integer, Integer> m, Integer[] keys) {
+        long before = usedHeap();
+        for (Integer k : keys) {
+            m.add(k, k);
+        }
+        long after = usedHeap();
+        return after - before;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        out.println("entries\tMap4 bytes\tMap5 bytes\tMap4/entry\tMap5/entry");
+        for (int n : SIZES) {
+            Integer[] keys = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = Integer.valueOf(i);
+            }
+
+            Map<Integer, Integer> chained = new Map4<>();
+            long chainedBytes = footprint(chained, keys);
+            Map<Integer, Integer> open = new Map5<>();
+            long openBytes = footprint(open, keys);
+
+            out.println(n + "\t" + chainedBytes + "\t" + openBytes + "\t"
+                    + (chainedBytes / n) + "\t" + (openBytes / n));
+
+            // Keeps both maps reachable until they have been measured
+            assert chained.size() == open.size();
+        }
+
+        out.close();
+    }
+
+}
@@ -0,0 +1,120 @@
+import components.map.Map;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Times full scans of a {@code Map4} with {@code TABLE_SIZE} buckets, through
+ * its iterator and through {@code forEachEntry}, at fill ratios from nearly
+ * empty to the maximum load factor. At low fill ratios a scan costs about one
+ * check per empty bucket, with no iterator created for it.
+ *
+ * @author Sean-Paul Billups, Michael Hu
+ *
+ */
+public final class MapScanBenchmark {
+
+    /**
+     * Number of buckets in each map.
+     */
+    private static final int TABLE_SIZE = 100_003;
+
+    /**
+     * Number of keys per bucket in the maps scanned.
+     */
+    private static final double[] FILL_RATIOS = { 0.001, 0.01, 0.1, 0.5, 0.75 };
+
+    /**
+     * Number of full scans per measurement.
+     */
+    private static final int SCANS = 200;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private MapScanBenchmark() {
+    }
+
+    /**
+     * Returns a {@code Map4} with {@code TABLE_SIZE} buckets, holding
+     * {@code keys} keys.
+     *
+     * @param keys
+     *            the number of keys
+     * @return the map
+     */
+    private static Map4<Integer, Integer> filledMap(int keys) {
+        // Keeps the table at TABLE_SIZE buckets for every fill ratio
+        Map4<Integer, Integer> m = new Map4<>(TABLE_SIZE, 0.75, 0.0);
+        for (int i = 0; i < keys; i++) {
+            m.add(i, i);
+        }
+        return m;
+    }
+
+    /**
+     * Returns the average nanoseconds per full scan of {@code m} through its
+     * iterator.
+     *
+     * @param m
+     *            the map
+     * @return the average time per scan
+     */
+    private static double nanosPerIteratorScan(Map<Integer, Integer> m) {
+        long sum = 0;
+        long start = System.nanoTime();
+        for (int scan = 0; scan < SCANS; scan++) {
+            for (Map.Pair<Integer, Integer> p : m) {
+                sum += p.value();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assert sum >= 0;
+        return (double) elapsed / SCANS;
+    }
+
+    /**
+     * Returns the average nanoseconds per full scan of {@code m} through
+     * {@code forEachEntry}.
+     *
+     * @param m
+     *            the map
+     * @return the average time per scan
+     */
+    private static double nanosPerForEachScan(Map4<Integer, Integer> m) {
+        long[] sum = { 0 };
+        long start = System.nanoTime();
+        for (int scan = 0; scan < SCANS; scan++) {
+            m.forEachEntry((k, v) -> sum[0] += v);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assert sum[0] >= 0;
+        return (double) elapsed / SCANS;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        // Runs once untimed so that both paths are compiled before measuring
+        Map4<Integer, Integer> warmUp = filledMap(TABLE_SIZE / 2);
+        nanosPerIteratorScan(warmUp);
+        nanosPerForEachScan(warmUp);
+
+        out.println("fill\tkeys\titerator us/scan\tforEachEntry us/scan");
+        for (double fill : FILL_RATIOS) {
+            Map4<Integer, Integer> m = filledMap((int) (fill * TABLE_SIZE));
+            out.println(fill + "\t" + m.size() + "\t" + nanosPerIteratorScan(m) / 1000
+                    + "\t\t" + nanosPerForEachScan(m) / 1000);
+        }
+
+        out.close();
+    }
+
+}
@@ -0,0 +1,178 @@
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * JUnit test fixture for {@code MappedMap4}, including reopening a map from
+ * its backing file.
+ *
+ * @author Sean-Paul Billups, Michael Hu
+ *
+ */
+public class MappedMap4Test {
+
+    /**
+     * Returns a path for a backing file that does not exist yet and is deleted
+     * when the JVM exits.
+     *
+     * @return the backing file
+     * @throws IOException
+     *             if the temporary file cannot be created
+     */
+    private static File newBackingFile() throws IOException {
+        File file = File.createTempFile("MappedMap4Test", ".map");
+        file.delete();
+        file.deleteOnExit();
+        return file;
+    }
+
+    /**
+     * Tests no-argument constructor.
+     */
+    @Test
+    public final void testConstructor() {
+        /*
+         * Set up variables and call method under test
+         */
+        Map<String, Integer> m = new MappedMap4();
+        Map<String, Integer> mExpected = new Map1L<>();
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Tests add, replaceValue, and remove on a map kept in a file.
+     *
+     * @throws IOException
+     *             if the backing file cannot be created
+     */
+    @Test
+    public final void testAddReplaceRemove() throws IOException {
+        /*
+         * Set up variables
+         */
+        Map<String, Integer> m = new MappedMap4(newBackingFile());
+        Map<String, Integer> mExpected = new Map1L<>();
+        mExpected.add("red", 1);
+        mExpected.add("", 3);
+
+        /*
+         * Call methods under test
+         */
+        m.add("red", 1);
+        m.add("green", 2);
+        m.add("", 0);
+        m.replaceValue("", 3);
+        Map.Pair<String, Integer> p = m.remove("green");
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("green", p.key());
+        assertEquals(Integer.valueOf(2), p.value());
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Tests that reopening the backing file gives back the same map.
+     *
+     * @throws IOException
+     *             if the backing file cannot be created
+     */
+    @Test
+    public final void testReopen() throws IOException {
+        /*
+         * Set up variables
+         */
+        File file = newBackingFile();
+        MappedMap4 m = new MappedMap4(file);
+        Map<String, Integer> mExpected = new Map1L<>();
+        m.add("café", 1);
+        mExpected.add("café", 1);
+        m.add("tea", 2);
+        m.remove("tea");
+
+        /*
+         * Call method under test
+         */
+        m.flush();
+        Map<String, Integer> reopened = new MappedMap4(file);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(mExpected, reopened);
+    }
+
+    /**
+     * Tests growing the table and the overflow region, then reopening.
+     *
+     * @throws IOException
+     *             if the backing file cannot be created
+     */
+    @Test
+    public final void testGrowAndReopen() throws IOException {
+        /*
+         * Set up variables
+         */
+        File file = newBackingFile();
+        MappedMap4 m = new MappedMap4(file);
+        Map<String, Integer> mExpected = new Map1L<>();
+
+        /*
+         * Call methods under test
+         */
+        final int n = 5000;
+        for (int i = 0; i < n; i++) {
+            m.add("key number " + i, i);
+            mExpected.add("key number " + i, i);
+        }
+        for (int i = 0; i < n; i += 2) {
+            m.remove("key number " + i);
+            mExpected.remove("key number " + i);
+        }
+        Map<String, Integer> reopened = new MappedMap4(file);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(mExpected, m);
+        assertEquals(mExpected, reopened);
+    }
+
+    /**
+     * Tests transferFrom.
+     */
+    @Test
+    public final void testTransferFrom() {
+        /*
+         * Set up variables
+         */
+        Map<String, Integer> m = new MappedMap4();
+        Map<String, Integer> source = new MappedMap4();
+        source.add("one", 1);
+        Map<String, Integer> mExpected = new Map1L<>();
+        mExpected.add("one", 1);
+
+        /*
+         * Call method under test
+         */
+        m.transferFrom(source);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(mExpected, m);
+        assertEquals(0, source.size());
+    }
+
+}
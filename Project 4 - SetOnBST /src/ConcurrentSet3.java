@@ -0,0 +1,237 @@
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as a lock-free skip list
+ * ({@code java.util.concurrent.ConcurrentSkipListSet}) ordered by
+ * {@code compareTo}, with implementations of primary methods, so that kernel
+ * methods, {@code addIfAbsent}, and {@code removeIfPresent} may be called from
+ * many threads at once without locking. Iteration is in increasing order and
+ * weakly consistent: it never fails, and sees every element present for the
+ * whole iteration. The standard methods ({@code clear}, {@code newInstance},
+ * {@code transferFrom}) must not race with any other method.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @convention <pre>
+ * $this.size = |$this.elements|  whenever no call is in progress
+ * </pre>
+ * @correspondence this = $this.elements
+ *
+ * @author Sean-Paul Billups and Michael Hu
+ *
+ */
+public class ConcurrentSet3<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Elements included in {@code this}.
+     */
+    private ConcurrentSkipListSet<T> elements;
+
+    /**
+     * Number of elements, kept apart since counting the skip list is O(n).
+     */
+    private AtomicInteger size;
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.elements = new ConcurrentSkipListSet<>();
+        this.size = new AtomicInteger();
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public ConcurrentSet3() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof ConcurrentSet3<?>
+                : "" + "Violation of: source is of dynamic type ConcurrentSet3<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * ConcurrentSet3<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        ConcurrentSet3<T> localSource = (ConcurrentSet3<T>) source;
+        this.elements = localSource.elements;
+        this.size = localSource.size;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        // Checks the precondition as part of the add, so no thread can race it
+        boolean added = this.elements.add(x);
+        assert added : "Violation of: x is not in this";
+        if (added) {
+            this.size.incrementAndGet();
+        }
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        /*
+         * Returns the element stored, which may be a different object from x
+         * when compareTo finds them equal
+         */
+        T stored = this.elements.ceiling(x);
+        assert stored != null && stored.compareTo(x) == 0 : "Violation of: x is in this";
+        if (stored != null && stored.compareTo(x) == 0
+                && this.elements.remove(stored)) {
+            this.size.decrementAndGet();
+        }
+
+        return stored;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        // Removes the smallest element, as Set3a does
+        T removed = this.elements.pollFirst();
+        assert removed != null : "Violation of: this /= empty_set";
+        if (removed != null) {
+            this.size.decrementAndGet();
+        }
+
+        return removed;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return this.elements.contains(x);
+    }
+
+    @Override
+    public final int size() {
+        return this.size.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The elements come in increasing order. The iterator is weakly
+     * consistent: it may or may not see changes made while it is in use.
+     */
+    @Override
+    public final Iterator<T> iterator() {
+        final Iterator<T> it = this.elements.iterator();
+        return new Iterator<T>() {
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return it.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException(
+                        "remove operation not supported");
+            }
+
+        };
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Adds {@code x} to {@code this} if it is not already there, atomically,
+     * and reports whether it was added.
+     *
+     * @param x
+     *            the element to be added
+     * @return true if x was added, false if it was already in this
+     * @aliases reference {@code x}
+     * @updates this
+     * @ensures addIfAbsent = (x is not in #this)  and  this = #this union {x}
+     */
+    public final boolean addIfAbsent(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        boolean added = this.elements.add(x);
+        if (added) {
+            this.size.incrementAndGet();
+        }
+        return added;
+    }
+
+    /**
+     * Removes {@code x} from {@code this} if it is there, atomically, and
+     * reports whether it was removed.
+     *
+     * @param x
+     *            the element to be removed
+     * @return true if x was removed, false if it was not in this
+     * @updates this
+     * @ensures removeIfPresent = (x is in #this)  and  this = #this \ {x}
+     */
+    public final boolean removeIfPresent(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        boolean removed = this.elements.remove(x);
+        if (removed) {
+            this.size.decrementAndGet();
+        }
+        return removed;
+    }
+
+}
@@ -1,4 +1,12 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 import components.binarytree.BinaryTree;
 import components.binarytree.BinaryTree1;
@@ -36,6 +44,22 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
      */
     private BinaryTree<T> tree;
 
+    /**
+     * Receiver of a {@code TreeShape} every {@code reportPeriod} updates, or
+     * null if none.
+     */
+    private Consumer<TreeShape<T>> shapeReporter;
+
+    /**
+     * Number of updates between calls to {@code shapeReporter}.
+     */
+    private int reportPeriod;
+
+    /**
+     * Number of updates since {@code shapeReporter} was last called.
+     */
+    private int updatesSinceReport;
+
     /**
      * Returns whether {@code x} is in {@code t}.
      *
@@ -87,7 +111,8 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
     }
 
     /**
-     * Inserts {@code x} in {@code t}.
+     * Inserts {@code x} in {@code t} unless it is already there, and reports
+     * whether it was inserted.
      *
      * @param <T>
      *            type of {@code BinaryTree} labels
@@ -95,15 +120,22 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
      *            the {@code BinaryTree} to be searched
      * @param x
      *            the label to be inserted
+     * @return true if x was inserted, false if it was already in t
      * @aliases reference {@code x}
      * @updates t
-     * @requires IS_BST(t) and x is not in labels(t)
-     * @ensures IS_BST(t) and labels(t) = labels(#t) union {x}
+     * @requires IS_BST(t)
+     * @ensures <pre>
+     * IS_BST(t)  and  insertInTree = (x is not in labels(#t))  and
+     *  labels(t) = labels(#t) union {x}
+     * </pre>
      */
-    private static <T extends Comparable<T>> void insertInTree(BinaryTree<T> t, T x) {
+    private static <T extends Comparable<T>> boolean insertInTree(BinaryTree<T> t, T x) {
         assert t != null : "Violation of: t is not null";
         assert x != null : "Violation of: x is not null";
 
+        // Initializes a boolean that tells whether {@code x} was inserted
+        boolean inserted = true;
+
         // Initializes the left and right branch of {@code t}
         BinaryTree<T> left = t.newInstance();
         BinaryTree<T> right = t.newInstance();
@@ -115,12 +147,15 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
             T root = t.disassemble(left, right);
 
             // Compares {@code root} to {@code x}
-            if (x.compareTo(root) < 0) {
-                insertInTree(left, x);
+            int cmp = x.compareTo(root);
+            if (cmp < 0) {
+                inserted = insertInTree(left, x);
 
-            } else if (x.compareTo(root) > 0) {
-                insertInTree(right, x);
+            } else if (cmp > 0) {
+                inserted = insertInTree(right, x);
 
+            } else {
+                inserted = false;
             }
 
             // Reassembles {@code t}
@@ -133,6 +168,8 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
 
         }
 
+        // Returns whether {@code x} was inserted
+        return inserted;
     }
 
     /**
@@ -183,7 +220,7 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
 
     /**
      * Finds label {@code x} in {@code t}, removes it from {@code t}, and
-     * returns it.
+     * returns it, or returns {@code null} if {@code x} is not in {@code t}.
      *
      * @param <T>
      *            type of {@code BinaryTree} labels
@@ -191,167 +228,1372 @@ public class Set3a<T extends Comparable<T>> extends SetSecondary<T> {
      *            the {@code BinaryTree} from which to remove label {@code x}
      * @param x
      *            the label to be removed
-     * @return the removed label
+     * @return the removed label, or null
      * @updates t
-     * @requires IS_BST(t) and x is in labels(t)
+     * @requires IS_BST(t)
      * @ensures <pre>
-     * IS_BST(t)  and  removeFromTree = x  and
-     *  labels(t) = labels(#t) \ {x}
+     * IS_BST(t)  and  labels(t) = labels(#t) \ {x}  and
+     *  if x is in labels(#t) then removeFromTree = x
+     *  else removeFromTree = null
      * </pre>
      */
     private static <T extends Comparable<T>> T removeFromTree(BinaryTree<T> t, T x) {
         assert t != null : "Violation of: t is not null";
         assert x != null : "Violation of: x is not null";
-        assert t.size() > 0 : "Violation of: x is in labels(t)";
 
-        // Initializes {@code left} and {@code right}
-        BinaryTree<T> left = t.newInstance();
-        BinaryTree<T> right = t.newInstance();
+        // Initializes the removed label; stays null if {@code x} is not found
+        T removal = null;
 
-        // Disassembles {@code t} and initializes {@code root} and {@code smallest}
-        T root = t.disassemble(left, right);
-        T removal = root;
+        // Iterates if {@code t} is not empty
+        if (t.size() > 0) {
 
-        // Analyzes whether {@code x} is equal to, greater than, or less than {@code root}
-        if (x.compareTo(root) < 0) {
+            // Initializes {@code left} and {@code right}
+            BinaryTree<T> left = t.newInstance();
+            BinaryTree<T> right = t.newInstance();
 
-            // If {@code x} is less than {@code root}, it is removed from {@code left}
-            removal = removeFromTree(left, x);
-            t.assemble(root, left, right);
+            // Disassembles {@code t} and initializes {@code root}
+            T root = t.disassemble(left, right);
+            int cmp = x.compareTo(root);
 
-        } else if (x.compareTo(root) > 0) {
+            // Analyzes whether {@code x} is equal to, greater or less than {@code root}
+            if (cmp < 0) {
 
-            // If {@code x} is greater than {@code root}, it is removed from {@code right}
-            removal = removeFromTree(right, x);
-            t.assemble(root, left, right);
+                // If {@code x} is less than {@code root}, it is removed from {@code left}
+                removal = removeFromTree(left, x);
+                t.assemble(root, left, right);
 
-        } else {
+            } else if (cmp > 0) {
 
-            // If {@code right} is empty, {@code t} takes the value of {@code left}
-            if (right.size() == 0) {
-                t.transferFrom(left);
+                // If {@code x} is greater, it is removed from {@code right}
+                removal = removeFromTree(right, x);
+                t.assemble(root, left, right);
 
             } else {
 
-                /*
-                 * If {@code right} is not empty, then {@code root} is replaced
-                 * by its smallest value.
-                 */
-                root = removeSmallest(right);
-                t.assemble(root, left, right);
+                removal = root;
+
+                // If {@code right} is empty, {@code t} takes the value of {@code left}
+                if (right.size() == 0) {
+                    t.transferFrom(left);
+
+                } else {
+
+                    /*
+                     * If {@code right} is not empty, then {@code root} is
+                     * replaced by its smallest value.
+                     */
+                    root = removeSmallest(right);
+                    t.assemble(root, left, right);
+                }
+
             }
 
         }
 
-        // Returns the smallest value
+        // Returns the removed value
         return removal;
 
     }
 
     /**
-     * Creator of initial representation.
+     * Returns the greatest label in {@code t} that is at most {@code x}, or
+     * {@code null} if there is none.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param t
+     *            the {@code BinaryTree} to be searched
+     * @param x
+     *            the bound
+     * @return the greatest label <= x, or null
+     * @requires IS_BST(t)
+     * @ensures <pre>
+     * if there exists y in labels(t) with y <= x then
+     *   floorInTree = [the greatest such y]
+     * else
+     *   floorInTree = null
+     * </pre>
      */
-    private void createNewRep() {
-        this.tree = new BinaryTree1<T>();
+    private static <T extends Comparable<T>> T floorInTree(BinaryTree<T> t, T x) {
+        assert t != null : "Violation of: t is not null";
+        assert x != null : "Violation of: x is not null";
+
+        // Initializes the result, which stays null if no label is small enough
+        T floor = null;
+
+        // Iterates if {@code t} is not empty
+        if (t.size() > 0) {
+
+            // Disassembles {@code t} and initializes {@code root}
+            BinaryTree<T> left = t.newInstance();
+            BinaryTree<T> right = t.newInstance();
+            T root = t.disassemble(left, right);
+
+            int cmp = x.compareTo(root);
+            if (cmp == 0) {
+                floor = root;
+
+            } else if (cmp < 0) {
+                floor = floorInTree(left, x);
+
+            } else {
+
+                // {@code root} is the floor unless {@code right} has a closer one
+                floor = floorInTree(right, x);
+                if (floor == null) {
+                    floor = root;
+                }
+            }
+
+            // Reassembles {@code t}
+            t.assemble(root, left, right);
+
+        }
+
+        // Returns the floor of {@code x}
+        return floor;
     }
 
-    /*
-     * Constructors -----------------------------------------------------------
+    /**
+     * Returns the least label in {@code t} that is at least {@code x}, or
+     * {@code null} if there is none.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param t
+     *            the {@code BinaryTree} to be searched
+     * @param x
+     *            the bound
+     * @return the least label >= x, or null
+     * @requires IS_BST(t)
+     * @ensures <pre>
+     * if there exists y in labels(t) with y >= x then
+     *   ceilingInTree = [the least such y]
+     * else
+     *   ceilingInTree = null
+     * </pre>
      */
+    private static <T extends Comparable<T>> T ceilingInTree(BinaryTree<T> t, T x) {
+        assert t != null : "Violation of: t is not null";
+        assert x != null : "Violation of: x is not null";
+
+        // Initializes the result, which stays null if no label is large enough
+        T ceiling = null;
+
+        // Iterates if {@code t} is not empty
+        if (t.size() > 0) {
+
+            // Disassembles {@code t} and initializes {@code root}
+            BinaryTree<T> left = t.newInstance();
+            BinaryTree<T> right = t.newInstance();
+            T root = t.disassemble(left, right);
+
+            int cmp = x.compareTo(root);
+            if (cmp == 0) {
+                ceiling = root;
+
+            } else if (cmp > 0) {
+                ceiling = ceilingInTree(right, x);
+
+            } else {
+
+                // {@code root} is the ceiling unless {@code left} has a closer one
+                ceiling = ceilingInTree(left, x);
+                if (ceiling == null) {
+                    ceiling = root;
+                }
+            }
+
+            // Reassembles {@code t}
+            t.assemble(root, left, right);
+
+        }
+
+        // Returns the ceiling of {@code x}
+        return ceiling;
+    }
 
     /**
-     * No-argument constructor.
+     * Returns the smallest or the largest label in {@code t}.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param t
+     *            the {@code BinaryTree} to be searched
+     * @param smallest
+     *            whether to return the smallest label rather than the largest
+     * @return the smallest or largest label in t
+     * @requires IS_BST(t) and |t| > 0
+     * @ensures <pre>
+     * if smallest then extremeInTree = [the smallest label in t]
+     * else extremeInTree = [the largest label in t]
+     * </pre>
      */
-    public Set3a() {
-        this.createNewRep();
+    private static <T> T extremeInTree(BinaryTree<T> t, boolean smallest) {
+        assert t != null : "Violation of: t is not null";
+        assert t.size() > 0 : "Violation of: |t| > 0";
+
+        // Disassembles {@code t} and initializes {@code root}
+        BinaryTree<T> left = t.newInstance();
+        BinaryTree<T> right = t.newInstance();
+        T root = t.disassemble(left, right);
+        T extreme = root;
+
+        // Goes down the left or right side while there is one
+        if (smallest && left.size() > 0) {
+            extreme = extremeInTree(left, true);
+        } else if (!smallest && right.size() > 0) {
+            extreme = extremeInTree(right, false);
+        }
+
+        // Reassembles {@code t}
+        t.assemble(root, left, right);
 
+        // Returns the extreme label
+        return extreme;
     }
 
-    /*
-     * Standard methods -------------------------------------------------------
+    /**
+     * Returns the number of labels in {@code t} less than {@code x}, using the
+     * size of each subtree passed over instead of counting its labels.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param t
+     *            the {@code BinaryTree} to be searched
+     * @param x
+     *            the bound
+     * @return the number of labels < x
+     * @requires IS_BST(t)
+     * @ensures rankInTree = |{y: T where (y is in labels(t) and y < x)}|
      */
+    private static <T extends Comparable<T>> int rankInTree(BinaryTree<T> t, T x) {
+        assert t != null : "Violation of: t is not null";
+        assert x != null : "Violation of: x is not null";
+
+        // Initializes the count of labels less than {@code x}
+        int rank = 0;
+
+        // Iterates if {@code t} is not empty
+        if (t.size() > 0) {
+
+            // Disassembles {@code t} and initializes {@code root}
+            BinaryTree<T> left = t.newInstance();
+            BinaryTree<T> right = t.newInstance();
+            T root = t.disassemble(left, right);
+
+            if (x.compareTo(root) <= 0) {
+                rank = rankInTree(left, x);
+            } else {
+
+                // All of {@code left} and {@code root} are less than {@code x}
+                rank = left.size() + 1 + rankInTree(right, x);
+            }
+
+            // Reassembles {@code t}
+            t.assemble(root, left, right);
 
-    @SuppressWarnings("unchecked")
-    @Override
-    public final Set<T> newInstance() {
-        try {
-            return this.getClass().getConstructor().newInstance();
-        } catch (ReflectiveOperationException e) {
-            throw new AssertionError(
-                    "Cannot construct object of type " + this.getClass());
         }
-    }
 
-    @Override
-    public final void clear() {
-        this.createNewRep();
+        // Returns the rank of {@code x}
+        return rank;
     }
 
-    @Override
-    public final void transferFrom(Set<T> source) {
-        assert source != null : "Violation of: source is not null";
-        assert source != this : "Violation of: source is not this";
-        assert source instanceof Set3a<?>
-                : "" + "Violation of: source is of dynamic type Set3<?>";
-        /*
-         * This cast cannot fail since the assert above would have stopped
-         * execution in that case: source must be of dynamic type Set3a<?>, and
-         * the ? must be T or the call would not have compiled.
-         */
-        Set3a<T> localSource = (Set3a<T>) source;
-        this.tree = localSource.tree;
-        localSource.createNewRep();
+    /**
+     * Returns the label in {@code t} with exactly {@code i} smaller labels,
+     * using the size of each subtree passed over to pick a side.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param t
+     *            the {@code BinaryTree} to be searched
+     * @param i
+     *            the rank of the label wanted
+     * @return the label of rank i
+     * @requires IS_BST(t) and 0 <= i < |t|
+     * @ensures <pre>
+     * selectInTree is in labels(t)  and
+     * |{y: T where (y is in labels(t) and y < selectInTree)}| = i
+     * </pre>
+     */
+    private static <T> T selectInTree(BinaryTree<T> t, int i) {
+        assert t != null : "Violation of: t is not null";
+        assert 0 <= i && i < t.size() : "Violation of: 0 <= i < |t|";
+
+        // Disassembles {@code t} and initializes {@code root}
+        BinaryTree<T> left = t.newInstance();
+        BinaryTree<T> right = t.newInstance();
+        T root = t.disassemble(left, right);
+        T selected = root;
+
+        // Compares {@code i} to the number of labels left of {@code root}
+        if (i < left.size()) {
+            selected = selectInTree(left, i);
+        } else if (i > left.size()) {
+            selected = selectInTree(right, i - left.size() - 1);
+        }
+
+        // Reassembles {@code t}
+        t.assemble(root, left, right);
+
+        // Returns the selected label
+        return selected;
     }
 
-    /*
-     * Kernel methods ---------------------------------------------------------
+    /**
+     * Appends the labels of {@code t} to {@code labels} in increasing order,
+     * leaving {@code t} as it was.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param t
+     *            the {@code BinaryTree} to flatten
+     * @param labels
+     *            the list to append to
+     * @updates labels
+     * @requires IS_BST(t)
+     * @ensures labels = #labels * [labels of t in increasing order]
      */
+    private static <T> void flatten(BinaryTree<T> t, List<T> labels) {
+        assert t != null : "Violation of: t is not null";
 
-    @Override
-    public final void add(T x) {
-        assert x != null : "Violation of: x is not null";
-        assert !this.contains(x) : "Violation of: x is not in this";
+        // Iterates if {@code t} is not empty
+        if (t.size() > 0) {
 
-        // Adds {@code x} into {@code this.tree}
-        insertInTree(this.tree, x);
+            // Disassembles {@code t}, flattens it in order, and reassembles it
+            BinaryTree<T> left = t.newInstance();
+            BinaryTree<T> right = t.newInstance();
+            T root = t.disassemble(left, right);
+            flatten(left, labels);
+            labels.add(root);
+            flatten(right, labels);
+            t.assemble(root, left, right);
 
+        }
     }
 
-    @Override
-    public final T remove(T x) {
-        assert x != null : "Violation of: x is not null";
-        assert this.contains(x) : "Violation of: x is in this";
+    /**
+     * Subtree on the explicit stack of {@code collectInOrder}.
+     *
+     * @param <T>
+     *            type of labels
+     */
+    private static final class WalkFrame<T> {
 
-        // Removes {@code x} from {@code this.tree}
-        return removeFromTree(this.tree, x);
-    }
+        /**
+         * The subtree, disassembled while it is on the stack.
+         */
+        private final BinaryTree<T> tree;
 
-    @Override
-    public final T removeAny() {
-        assert this.size() > 0 : "Violation of: this /= empty_set";
+        /**
+         * Left subtree.
+         */
+        private final BinaryTree<T> left;
 
-        // Removes an arbitrary element
-        return removeSmallest(this.tree);
-    }
+        /**
+         * Right subtree.
+         */
+        private final BinaryTree<T> right;
 
-    @Override
-    public final boolean contains(T x) {
-        assert x != null : "Violation of: x is not null";
+        /**
+         * Root label.
+         */
+        private final T root;
 
-        // Returns whether {@code x} is in {@code this.tree}
-        return isInTree(this.tree, x);
-    }
+        /**
+         * Number of children visited or skipped so far.
+         */
+        private int childrenDone;
 
-    @Override
-    public final int size() {
+        /**
+         * Constructor that disassembles {@code tree}.
+         *
+         * @param tree
+         *            the subtree, not empty
+         */
+        WalkFrame(BinaryTree<T> tree) {
+            this.tree = tree;
+            this.left = tree.newInstance();
+            this.right = tree.newInstance();
+            this.root = tree.disassemble(this.left, this.right);
+        }
 
-        // Returns the tree size
-        return this.tree.size();
     }
 
+    /**
+     * Appends to {@code labels}, in increasing order, the first {@code limit}
+     * labels of {@code t} that are above {@code lo} (or at it, if
+     * {@code inclusive}) and below {@code hi}, fewer if there are not that
+     * many, and reports the greatest depth the walk reached. Subtrees wholly
+     * outside the bounds are skipped, so the walk takes O(height + limit)
+     * time. It keeps its own stack instead of recursing, and leaves {@code t}
+     * as it was.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param t
+     *            the {@code BinaryTree} to be searched
+     * @param lo
+     *            the lower bound, or null for none
+     * @param inclusive
+     *            whether a label equal to lo is wanted
+     * @param hi
+     *            the upper bound, exclusive, or null for none
+     * @param limit
+     *            the most labels to append
+     * @param labels
+     *            the list to append to
+     * @return the number of nodes on the longest path the walk went down
+     * @updates labels
+     * @requires IS_BST(t)  and  limit > 0
+     * @ensures <pre>
+     * labels = #labels * [the first limit labels y of t, in increasing order,
+     *   with lo < y (or lo <= y, if inclusive) and y < hi]
+     * </pre>
+     */
+    private static <T extends Comparable<T>> int collectInOrder(BinaryTree<T> t, T lo,
+            boolean inclusive, T hi, int limit, List<T> labels) {
+        assert t != null : "Violation of: t is not null";
+        assert limit > 0 : "Violation of: limit > 0";
+
+        int target = labels.size() + limit;
+        int deepest = 0;
+        Deque<WalkFrame<T>> stack = new ArrayDeque<>();
+        if (t.size() > 0) {
+            stack.push(new WalkFrame<>(t));
+        }
+        while (!stack.isEmpty()) {
+            deepest = Math.max(deepest, stack.size());
+            WalkFrame<T> f = stack.peek();
+            boolean full = labels.size() >= target;
+            if (f.childrenDone == 0) {
+
+                // Goes left only if some label there can be above {@code lo}
+                f.childrenDone = 1;
+                if (!full && f.left.size() > 0
+                        && (lo == null || lo.compareTo(f.root) < 0)) {
+                    stack.push(new WalkFrame<>(f.left));
+                }
+            } else if (f.childrenDone == 1) {
+
+                // Takes the root if in bounds, then goes right if below {@code hi}
+                f.childrenDone = 2;
+                boolean belowHi = hi == null || f.root.compareTo(hi) < 0;
+                if (!full && belowHi) {
+                    int cmp = 1;
+                    if (lo != null) {
+                        cmp = f.root.compareTo(lo);
+                    }
+                    if (cmp > 0 || (cmp == 0 && inclusive)) {
+                        labels.add(f.root);
+                        full = labels.size() >= target;
+                    }
+                    if (!full && f.right.size() > 0) {
+                        stack.push(new WalkFrame<>(f.right));
+                    }
+                }
+            } else {
+
+                // Both sides are done: reassembles the subtree
+                f.tree.assemble(f.root, f.left, f.right);
+                stack.pop();
+            }
+        }
+
+        return deepest;
+    }
+
+    /**
+     * Merges two increasing lists in one linear pass, keeping the labels only
+     * in {@code a}, the labels in both, and the labels only in {@code b} as
+     * requested.
+     *
+     * @param <T>
+     *            type of labels
+     * @param a
+     *            the first list
+     * @param b
+     *            the second list
+     * @param onlyA
+     *            whether to keep labels only in a
+     * @param both
+     *            whether to keep labels in both (the ones from a)
+     * @param onlyB
+     *            whether to keep labels only in b
+     * @return the merged list
+     * @requires [a and b are strictly increasing]
+     * @ensures <pre>
+     * merge = [the labels kept, in increasing order]
+     * </pre>
+     */
+    private static <T extends Comparable<T>> List<T> merge(List<T> a, List<T> b,
+            boolean onlyA, boolean both, boolean onlyB) {
+        List<T> merged = new ArrayList<>(a.size() + b.size());
+        int i = 0;
+        int j = 0;
+
+        // Advances past the smaller head each time, or both heads if equal
+        while (i < a.size() && j < b.size()) {
+            int cmp = a.get(i).compareTo(b.get(j));
+            if (cmp < 0) {
+                if (onlyA) {
+                    merged.add(a.get(i));
+                }
+                i++;
+            } else if (cmp > 0) {
+                if (onlyB) {
+                    merged.add(b.get(j));
+                }
+                j++;
+            } else {
+                if (both) {
+                    merged.add(a.get(i));
+                }
+                i++;
+                j++;
+            }
+        }
+
+        // Copies whichever tail is left, if it is kept
+        if (onlyA) {
+            merged.addAll(a.subList(i, a.size()));
+        }
+        if (onlyB) {
+            merged.addAll(b.subList(j, b.size()));
+        }
+
+        return merged;
+    }
+
+    /**
+     * Builds {@code t} as a perfectly balanced binary search tree of
+     * {@code labels[lo, hi)}.
+     *
+     * @param <T>
+     *            type of labels
+     * @param labels
+     *            the labels, in increasing order
+     * @param lo
+     *            the first position used
+     * @param hi
+     *            one past the last position used
+     * @param t
+     *            the tree to build
+     * @replaces t
+     * @requires 0 <= lo <= hi <= |labels|
+     * @ensures <pre>
+     * IS_BST(t)  and  labels(t) = [entries of labels[lo, hi)]  and
+     * height(t) = [the least height any tree of hi - lo labels can have]
+     * </pre>
+     */
+    private static <T> void buildBalanced(List<T> labels, int lo, int hi,
+            BinaryTree<T> t) {
+        t.clear();
+
+        // Builds only if the range is not empty
+        if (lo < hi) {
+
+            // Puts the middle label at the root and builds each half below it
+            int mid = (lo + hi) >>> 1;
+            BinaryTree<T> left = t.newInstance();
+            BinaryTree<T> right = t.newInstance();
+            buildBalanced(labels, lo, mid, left);
+            buildBalanced(labels, mid + 1, hi, right);
+            t.assemble(labels.get(mid), left, right);
+
+        }
+    }
+
+    /**
+     * Returns the tree holding the labels of {@code t1} and {@code t2} kept
+     * by {@code merge} with the given flags, perfectly balanced.
+     *
+     * @param <T>
+     *            type of labels
+     * @param t1
+     *            the first tree
+     * @param t2
+     *            the second tree
+     * @param onlyA
+     *            whether to keep labels only in t1
+     * @param both
+     *            whether to keep labels in both
+     * @param onlyB
+     *            whether to keep labels only in t2
+     * @return the combined tree
+     * @requires IS_BST(t1) and IS_BST(t2)
+     * @ensures IS_BST(combine)  and  [labels(combine) are the labels kept]
+     */
+    private static <T extends Comparable<T>> BinaryTree<T> combine(BinaryTree<T> t1,
+            BinaryTree<T> t2, boolean onlyA, boolean both, boolean onlyB) {
+        List<T> a = new ArrayList<>(t1.size());
+        flatten(t1, a);
+        List<T> b = new ArrayList<>(t2.size());
+        flatten(t2, b);
+        List<T> merged = merge(a, b, onlyA, both, onlyB);
+
+        BinaryTree<T> combined = t1.newInstance();
+        buildBalanced(merged, 0, merged.size(), combined);
+        return combined;
+    }
+
+    /**
+     * Node of a list of labels shared between paths, built from the leaves
+     * up by {@code measureShape}.
+     *
+     * @param <T>
+     *            type of labels
+     */
+    private static final class PathNode<T> {
+
+        /**
+         * Label of this node.
+         */
+        private final T label;
+
+        /**
+         * Rest of the path below this node, or null at a leaf.
+         */
+        private final PathNode<T> below;
+
+        /**
+         * Constructor from label and rest of path.
+         *
+         * @param label
+         *            the label
+         * @param below
+         *            the rest of the path, or null
+         */
+        PathNode(T label, PathNode<T> below) {
+            this.label = label;
+            this.below = below;
+        }
+
+    }
+
+    /**
+     * Subtree on the explicit stack of {@code measureShape}, with what is
+     * known of it so far.
+     *
+     * @param <T>
+     *            type of labels
+     */
+    private static final class ShapeFrame<T> {
+
+        /**
+         * The subtree, disassembled while its children are measured.
+         */
+        private final BinaryTree<T> tree;
+
+        /**
+         * Depth of the subtree's root, the whole tree's root having depth 0.
+         */
+        private final int depth;
+
+        /**
+         * Left subtree, once disassembled.
+         */
+        private BinaryTree<T> left;
+
+        /**
+         * Right subtree, once disassembled.
+         */
+        private BinaryTree<T> right;
+
+        /**
+         * Root label, once disassembled.
+         */
+        private T root;
+
+        /**
+         * Number of children measured so far.
+         */
+        private int childrenDone;
+
+        /**
+         * Height of the left subtree, once measured.
+         */
+        private int leftHeight;
+
+        /**
+         * Longest path of the left subtree, once measured.
+         */
+        private PathNode<T> leftPath;
+
+        /**
+         * Height of the right subtree, once measured.
+         */
+        private int rightHeight;
+
+        /**
+         * Longest path of the right subtree, once measured.
+         */
+        private PathNode<T> rightPath;
+
+        /**
+         * Constructor from subtree and its depth.
+         *
+         * @param tree
+         *            the subtree
+         * @param depth
+         *            the depth of its root
+         */
+        ShapeFrame(BinaryTree<T> tree, int depth) {
+            this.tree = tree;
+            this.depth = depth;
+        }
+
+    }
+
+    /**
+     * Measures the shape of {@code t} in one O(|t|) walk, leaving {@code t}
+     * as it was. The walk keeps its own stack instead of recursing, so a
+     * degenerate tree is measured without running out of call stack.
+     *
+     * @param <T>
+     *            type of {@code BinaryTree} labels
+     * @param t
+     *            the {@code BinaryTree} to measure
+     * @return the shape of t
+     * @ensures <pre>
+     * measureShape.size = |t|  and  measureShape.height = height(t)  and
+     * [the rest of measureShape describes t]
+     * </pre>
+     */
+    private static <T> TreeShape<T> measureShape(BinaryTree<T> t) {
+        assert t != null : "Violation of: t is not null";
+
+        long totalDepth = 0;
+        SortedMap<Integer, Integer> histogram = new TreeMap<>();
+        PathNode<T> path = null;
+
+        Deque<ShapeFrame<T>> stack = new ArrayDeque<>();
+        if (t.size() > 0) {
+            stack.push(new ShapeFrame<>(t, 0));
+        }
+        while (!stack.isEmpty()) {
+            ShapeFrame<T> f = stack.peek();
+            if (f.root == null) {
+
+                // First visit: disassembles and goes left, if there is a left
+                f.left = f.tree.newInstance();
+                f.right = f.tree.newInstance();
+                f.root = f.tree.disassemble(f.left, f.right);
+                totalDepth += f.depth;
+                if (f.left.size() > 0) {
+                    stack.push(new ShapeFrame<>(f.left, f.depth + 1));
+                } else {
+                    f.childrenDone = 1;
+                }
+            } else if (f.childrenDone == 1) {
+
+                // Left is done: goes right, if there is a right
+                f.childrenDone = 2;
+                if (f.right.size() > 0) {
+                    stack.push(new ShapeFrame<>(f.right, f.depth + 1));
+                }
+            } else {
+
+                // Both are done: reassembles and hands the results up
+                f.tree.assemble(f.root, f.left, f.right);
+                histogram.merge(f.leftHeight - f.rightHeight, 1, Integer::sum);
+                int height = 1 + Math.max(f.leftHeight, f.rightHeight);
+                PathNode<T> below = f.rightPath;
+                if (f.leftHeight >= f.rightHeight) {
+                    below = f.leftPath;
+                }
+                path = new PathNode<>(f.root, below);
+                stack.pop();
+
+                ShapeFrame<T> parent = stack.peek();
+                if (parent != null) {
+                    if (parent.childrenDone == 0) {
+                        parent.childrenDone = 1;
+                        parent.leftHeight = height;
+                        parent.leftPath = path;
+                    } else {
+                        parent.rightHeight = height;
+                        parent.rightPath = path;
+                    }
+                }
+            }
+        }
+
+        List<T> longestPath = new ArrayList<>();
+        for (PathNode<T> p = path; p != null; p = p.below) {
+            longestPath.add(p.label);
+        }
+        return new TreeShape<>(t.size(), totalDepth, histogram, longestPath);
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.tree = new BinaryTree1<T>();
+    }
+
+    /**
+     * Counts one update that changed the tree, and passes the shape of
+     * {@code this.tree} to {@code this.shapeReporter} if it is set and its
+     * period is up.
+     */
+    private void countUpdate() {
+        if (this.shapeReporter != null) {
+            this.updatesSinceReport++;
+            if (this.updatesSinceReport >= this.reportPeriod) {
+                this.updatesSinceReport = 0;
+                this.shapeReporter.accept(measureShape(this.tree));
+            }
+        }
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set3a() {
+        this.createNewRep();
+
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set3a<?>
+                : "" + "Violation of: source is of dynamic type Set3<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set3a<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set3a<T> localSource = (Set3a<T>) source;
+        this.tree = localSource.tree;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        // Adds {@code x} into {@code this.tree}
+        insertInTree(this.tree, x);
+        this.countUpdate();
+
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        // Removes {@code x} from {@code this.tree}
+        T removed = removeFromTree(this.tree, x);
+        this.countUpdate();
+        return removed;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        // Removes an arbitrary element
+        T removed = removeSmallest(this.tree);
+        this.countUpdate();
+        return removed;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        // Returns whether {@code x} is in {@code this.tree}
+        return isInTree(this.tree, x);
+    }
+
+    @Override
+    public final int size() {
+
+        // Returns the tree size
+        return this.tree.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The elements come in increasing order. The iterator fetches them a few
+     * at a time, with a walk from the root that resumes after the last one
+     * returned, so it uses O(height) memory and stopping early costs nothing
+     * for the rest of the set. A whole iteration takes O(|this|) time when the
+     * tree is balanced, and also when it is degenerate, since each walk then
+     * fetches as many elements as it went deep.
+     */
     @Override
     public final Iterator<T> iterator() {
-        return this.tree.iterator();
+        return new Set3aIterator(null, true, null);
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Adds {@code x} to {@code this} if it is not already there, in a single
+     * walk down the tree, and reports whether it was added. Unlike
+     * {@code add}, there is no {@code contains} check first, even with
+     * assertions enabled.
+     *
+     * @param x
+     *            the element to be added
+     * @return true if x was added, false if it was already in this
+     * @aliases reference {@code x}
+     * @updates this
+     * @ensures addIfAbsent = (x is not in #this)  and  this = #this union {x}
+     */
+    public final boolean addIfAbsent(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        boolean added = insertInTree(this.tree, x);
+        if (added) {
+            this.countUpdate();
+        }
+        return added;
+    }
+
+    /**
+     * Removes {@code x} from {@code this} if it is there, in a single walk
+     * down the tree, and reports whether it was removed. Unlike
+     * {@code remove}, there is no {@code contains} check first, even with
+     * assertions enabled.
+     *
+     * @param x
+     *            the element to be removed
+     * @return true if x was removed, false if it was not in this
+     * @updates this
+     * @ensures removeIfPresent = (x is in #this)  and  this = #this \ {x}
+     */
+    public final boolean removeIfPresent(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        boolean removed = removeFromTree(this.tree, x) != null;
+        if (removed) {
+            this.countUpdate();
+        }
+        return removed;
+    }
+
+    /*
+     * Bulk set methods -------------------------------------------------------
+     */
+
+    /**
+     * Returns the union of {@code this} and {@code s}. Both trees are
+     * flattened in order and merged in one pass, and the result is built
+     * perfectly balanced, in O(|this| + |s|) time.
+     *
+     * @param s
+     *            the other set
+     * @return the union
+     * @ensures union = this union s
+     */
+    public final Set3a<T> union(Set3a<T> s) {
+        assert s != null : "Violation of: s is not null";
+
+        Set3a<T> result = new Set3a<>();
+        result.tree = combine(this.tree, s.tree, true, true, true);
+        return result;
+    }
+
+    /**
+     * Returns the intersection of {@code this} and {@code s}, in
+     * O(|this| + |s|) time, as {@code union} does.
+     *
+     * @param s
+     *            the other set
+     * @return the intersection
+     * @ensures intersection = this intersection s
+     */
+    public final Set3a<T> intersection(Set3a<T> s) {
+        assert s != null : "Violation of: s is not null";
+
+        Set3a<T> result = new Set3a<>();
+        result.tree = combine(this.tree, s.tree, false, true, false);
+        return result;
+    }
+
+    /**
+     * Returns the elements of {@code this} not in {@code s}, in
+     * O(|this| + |s|) time, as {@code union} does.
+     *
+     * @param s
+     *            the other set
+     * @return the difference
+     * @ensures difference = this \ s
+     */
+    public final Set3a<T> difference(Set3a<T> s) {
+        assert s != null : "Violation of: s is not null";
+
+        Set3a<T> result = new Set3a<>();
+        result.tree = combine(this.tree, s.tree, true, false, false);
+        return result;
+    }
+
+    /**
+     * Adds every element of {@code s} to {@code this}, leaving {@code s} as
+     * it was, in O(|this| + |s|) time. {@code this} ends up perfectly
+     * balanced.
+     *
+     * @param s
+     *            the set whose elements are added
+     * @updates this
+     * @ensures this = #this union s
+     */
+    public final void addAll(Set3a<T> s) {
+        assert s != null : "Violation of: s is not null";
+
+        this.tree = combine(this.tree, s.tree, true, true, true);
+    }
+
+    /**
+     * Removes every element of {@code this} not in {@code s}, in
+     * O(|this| + |s|) time. {@code this} ends up perfectly balanced.
+     *
+     * @param s
+     *            the set whose elements are kept
+     * @updates this
+     * @ensures this = #this intersection s
+     */
+    public final void retainAll(Set3a<T> s) {
+        assert s != null : "Violation of: s is not null";
+
+        this.tree = combine(this.tree, s.tree, false, true, false);
+    }
+
+    /**
+     * Removes every element of {@code s} from {@code this}, leaving {@code s}
+     * as it was, in O(|this| + |s|) time. {@code this} ends up perfectly
+     * balanced.
+     *
+     * @param s
+     *            the set whose elements are removed
+     * @updates this
+     * @ensures this = #this \ s
+     */
+    public final void removeAll(Set3a<T> s) {
+        assert s != null : "Violation of: s is not null";
+
+        this.tree = combine(this.tree, s.tree, true, false, false);
+    }
+
+    /*
+     * Ordered-set methods ----------------------------------------------------
+     */
+
+    /**
+     * Reports the greatest element of {@code this} that is at most {@code x},
+     * or {@code null} if there is none.
+     *
+     * @param x
+     *            the bound
+     * @return the greatest element <= x, or null
+     * @ensures <pre>
+     * if there exists y in this with y <= x then
+     *   floor = [the greatest such y]
+     * else
+     *   floor = null
+     * </pre>
+     */
+    public final T floor(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return floorInTree(this.tree, x);
+    }
+
+    /**
+     * Reports the least element of {@code this} that is at least {@code x},
+     * or {@code null} if there is none.
+     *
+     * @param x
+     *            the bound
+     * @return the least element >= x, or null
+     * @ensures <pre>
+     * if there exists y in this with y >= x then
+     *   ceiling = [the least such y]
+     * else
+     *   ceiling = null
+     * </pre>
+     */
+    public final T ceiling(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return ceilingInTree(this.tree, x);
+    }
+
+    /**
+     * Reports the smallest element of {@code this}.
+     *
+     * @return the smallest element
+     * @requires this /= empty_set
+     * @ensures first = [the smallest element of this]
+     */
+    public final T first() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        return extremeInTree(this.tree, true);
+    }
+
+    /**
+     * Reports the largest element of {@code this}.
+     *
+     * @return the largest element
+     * @requires this /= empty_set
+     * @ensures last = [the largest element of this]
+     */
+    public final T last() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        return extremeInTree(this.tree, false);
+    }
+
+    /**
+     * Reports the number of elements of {@code this} less than {@code x}, in
+     * time proportional to the height of the tree.
+     *
+     * @param x
+     *            the bound
+     * @return the number of elements < x
+     * @ensures rank = |{y: T where (y is in this and y < x)}|
+     */
+    public final int rank(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return rankInTree(this.tree, x);
+    }
+
+    /**
+     * Reports the element of {@code this} with exactly {@code i} smaller
+     * elements (so {@code select(0)} is the smallest), in time proportional to
+     * the height of the tree.
+     *
+     * @param i
+     *            the rank of the element wanted
+     * @return the element of rank i
+     * @requires 0 <= i < |this|
+     * @ensures select is in this  and  rank(select) = i
+     */
+    public final T select(int i) {
+        assert 0 <= i && i < this.size() : "Violation of: 0 <= i < |this|";
+
+        return selectInTree(this.tree, i);
+    }
+
+    /**
+     * Returns an iterator over the elements of {@code this} in {@code [lo, hi)},
+     * in increasing order. Like {@code iterator}, it fetches them a few at a
+     * time, visiting only the parts of the tree that can hold them.
+     *
+     * @param lo
+     *            the lower bound, inclusive
+     * @param hi
+     *            the upper bound, exclusive
+     * @return an iterator over the elements y with lo <= y < hi
+     * @requires lo <= hi
+     * @ensures <pre>
+     * [rangeIterator yields the elements y of this with lo <= y < hi, in
+     *  increasing order]
+     * </pre>
+     */
+    public final Iterator<T> rangeIterator(T lo, T hi) {
+        assert lo != null : "Violation of: lo is not null";
+        assert hi != null : "Violation of: hi is not null";
+        assert lo.compareTo(hi) <= 0 : "Violation of: lo <= hi";
+
+        return new Set3aIterator(lo, true, hi);
+    }
+
+    /*
+     * Diagnostic methods -----------------------------------------------------
+     */
+
+    /**
+     * Measures the shape of the tree that represents {@code this}: height,
+     * average node depth, balance-factor histogram, and a longest path. Takes
+     * one O(|this|) walk, which uses no recursion, so it is safe to call on a
+     * tree already too deep for the kernel methods.
+     *
+     * @return the shape of the tree
+     * @ensures shape.size = |this|
+     */
+    public final TreeShape<T> shape() {
+        return measureShape(this.tree);
+    }
+
+    /**
+     * Has {@code reporter} receive the tree's {@code shape} after every
+     * {@code period} single-element updates ({@code add}, {@code remove},
+     * {@code removeAny}, and the calls to {@code addIfAbsent} and
+     * {@code removeIfPresent} that change the set), or stops reports if
+     * {@code reporter} is null. Inserting in sorted order,
+     * for instance, shows up as a height that grows with every report. The
+     * bulk methods are not counted, since they leave the tree balanced. The
+     * reporter is not carried over by {@code newInstance} or
+     * {@code transferFrom}.
+     *
+     * @param period
+     *            the number of updates between reports
+     * @param reporter
+     *            the receiver of the reports, or null
+     * @requires period > 0
+     */
+    public final void setShapeReporter(int period, Consumer<TreeShape<T>> reporter) {
+        assert period > 0 : "Violation of: period > 0";
+
+        this.reportPeriod = period;
+        this.shapeReporter = reporter;
+        this.updatesSinceReport = 0;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set3a}, which
+     * fetches the elements in batches from {@code this.tree}, each batch
+     * starting just after the last element returned.
+     */
+    private final class Set3aIterator implements Iterator<T> {
+
+        /**
+         * Fewest elements fetched by one walk.
+         */
+        private static final int MIN_BATCH = 64;
+
+        /**
+         * Elements fetched and not yet returned start at {@code position}.
+         */
+        private final List<T> batch;
+
+        /**
+         * Position in {@code batch} of the element {@code next} returns next.
+         */
+        private int position;
+
+        /**
+         * Elements above this bound are returned, or all if null: the last
+         * element returned, or the lower bound before the first.
+         */
+        private T lo;
+
+        /**
+         * Whether an element equal to {@code lo} is wanted.
+         */
+        private boolean inclusive;
+
+        /**
+         * Upper bound, exclusive, or null for none.
+         */
+        private final T hi;
+
+        /**
+         * Number of elements the next walk fetches.
+         */
+        private int batchSize;
+
+        /**
+         * Whether a walk found fewer elements than it asked for, so no more
+         * are left.
+         */
+        private boolean exhausted;
+
+        /**
+         * Constructor from bounds.
+         *
+         * @param lo
+         *            the lower bound, or null for none
+         * @param inclusive
+         *            whether an element equal to lo is wanted
+         * @param hi
+         *            the upper bound, exclusive, or null for none
+         */
+        Set3aIterator(T lo, boolean inclusive, T hi) {
+            this.batch = new ArrayList<>();
+            this.position = 0;
+            this.lo = lo;
+            this.inclusive = inclusive;
+            this.hi = hi;
+            this.batchSize = MIN_BATCH;
+            this.exhausted = false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.position == this.batch.size() && !this.exhausted) {
+
+                /*
+                 * Fetches the next batch; asking for at least as many elements
+                 * as the last walk went deep keeps a walk down a long path
+                 * paid for by the elements it returns
+                 */
+                this.batch.clear();
+                this.position = 0;
+                int depth = collectInOrder(Set3a.this.tree, this.lo, this.inclusive,
+                        this.hi, this.batchSize, this.batch);
+                this.exhausted = this.batch.size() < this.batchSize;
+                this.batchSize = Math.max(MIN_BATCH, depth);
+            }
+            return this.position < this.batch.size();
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T result = this.batch.get(this.position);
+            this.position++;
+            this.lo = result;
+            this.inclusive = false;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
     }
 
 }
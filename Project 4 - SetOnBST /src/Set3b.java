@@ -0,0 +1,552 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as an AVL tree (a binary search tree in which the
+ * heights of the two subtrees of every node differ by at most one) of its own
+ * nodes, with implementations of primary methods. Unlike {@code Set3a}, the
+ * tree stays O(log n) high whatever order the elements are added in, so
+ * elements added in sorted order do not degrade it into a list. The kernel
+ * methods are loops over the nodes, using parent links to walk back up when
+ * rebalancing, so they neither recurse nor allocate anything but the one new
+ * node in {@code add}.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @mathdefinitions <pre>
+ * IS_BST(
+ *   tree: binary tree of T
+ *  ): boolean satisfies
+ *  [tree satisfies the binary search tree properties as described in the
+ *   slides with the ordering reported by compareTo for T, including that
+ *   it has no duplicate labels]
+ *
+ * IS_AVL(
+ *   tree: binary tree of T
+ *  ): boolean satisfies
+ *  IS_BST(tree)  and
+ *  [for every node of tree, the heights of its left and right subtrees
+ *   differ by at most 1, and its height field is its height]
+ * </pre>
+ * @convention <pre>
+ * IS_AVL([the tree of nodes rooted at $this.root])  and
+ * [$this.root.parent = null, and the parent of every other node is the node
+ *  it is a child of]  and
+ * $this.size = |labels([the tree of nodes rooted at $this.root])|
+ * </pre>
+ * @correspondence this = labels([the tree of nodes rooted at $this.root])
+ *
+ * @author Sean-Paul Billups and Michael Hu
+ *
+ */
+public class Set3b<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Node of the tree.
+     *
+     * @param <T>
+     *            type of label
+     */
+    private static final class Node<T> {
+
+        /**
+         * The label.
+         */
+        private T label;
+
+        /**
+         * Root of the left subtree, or {@code null}.
+         */
+        private Node<T> left;
+
+        /**
+         * Root of the right subtree, or {@code null}.
+         */
+        private Node<T> right;
+
+        /**
+         * Parent of this node, or {@code null} at the root.
+         */
+        private Node<T> parent;
+
+        /**
+         * Height of the subtree rooted here (1 for a leaf).
+         */
+        private int height;
+
+        /**
+         * Constructor for a leaf.
+         *
+         * @param label
+         *            the label
+         * @param parent
+         *            the parent, or null for the root
+         */
+        Node(T label, Node<T> parent) {
+            this.label = label;
+            this.parent = parent;
+            this.height = 1;
+        }
+
+    }
+
+    /**
+     * Root of the tree, or {@code null} if it is empty.
+     */
+    private Node<T> root;
+
+    /**
+     * Number of elements in {@code this}.
+     */
+    private int size;
+
+    /**
+     * Returns the height of the subtree rooted at {@code n}.
+     *
+     * @param <T>
+     *            type of labels
+     * @param n
+     *            the root of the subtree, or null
+     * @return the height of the subtree
+     * @ensures height = [height of the subtree rooted at n]
+     */
+    private static <T> int height(Node<T> n) {
+        int h = 0;
+        if (n != null) {
+            h = n.height;
+        }
+        return h;
+    }
+
+    /**
+     * Recomputes the height of {@code n} from the heights of its children.
+     *
+     * @param <T>
+     *            type of labels
+     * @param n
+     *            the node
+     * @updates n.height
+     */
+    private static <T> void updateHeight(Node<T> n) {
+        n.height = 1 + Math.max(height(n.left), height(n.right));
+    }
+
+    /**
+     * Returns the left-most node of the subtree rooted at {@code n}.
+     *
+     * @param <T>
+     *            type of labels
+     * @param n
+     *            the root of the subtree
+     * @return the node with the smallest label
+     * @requires n /= null
+     */
+    private static <T> Node<T> leftmost(Node<T> n) {
+        Node<T> current = n;
+        while (current.left != null) {
+            current = current.left;
+        }
+        return current;
+    }
+
+    /**
+     * Returns the node labeled {@code x} in the subtree rooted at {@code n},
+     * or {@code null} if there is none.
+     *
+     * @param <T>
+     *            type of labels
+     * @param n
+     *            the root of the subtree
+     * @param x
+     *            the label to be searched for
+     * @return the node labeled x, or null
+     * @requires IS_BST(n)
+     */
+    private static <T extends Comparable<T>> Node<T> find(Node<T> n, T x) {
+        Node<T> current = n;
+        int cmp = 1;
+        while (current != null && cmp != 0) {
+            cmp = x.compareTo(current.label);
+            if (cmp < 0) {
+                current = current.left;
+            } else if (cmp > 0) {
+                current = current.right;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Makes {@code replacement} take the place of {@code child} under
+     * {@code parent}, or at the root if {@code parent} is {@code null}.
+     *
+     * @param parent
+     *            the parent of child, or null
+     * @param child
+     *            the node being replaced
+     * @param replacement
+     *            the node taking its place, or null
+     * @updates $this.root, parent
+     */
+    private void replaceChild(Node<T> parent, Node<T> child, Node<T> replacement) {
+        if (parent == null) {
+            this.root = replacement;
+        } else if (parent.left == child) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+        if (replacement != null) {
+            replacement.parent = parent;
+        }
+    }
+
+    /**
+     * Rotates the subtree rooted at {@code n} to the right.
+     *
+     * @param n
+     *            the root of the subtree
+     * @return the new root of the subtree
+     * @updates $this.root
+     * @requires n.left /= null
+     * @ensures [rotateRight is the root of a rotation of #n, with the same
+     *          labels in the same order, in the place of #n]
+     */
+    private Node<T> rotateRight(Node<T> n) {
+        Node<T> pivot = n.left;
+        this.replaceChild(n.parent, n, pivot);
+        n.left = pivot.right;
+        if (n.left != null) {
+            n.left.parent = n;
+        }
+        pivot.right = n;
+        n.parent = pivot;
+        updateHeight(n);
+        updateHeight(pivot);
+        return pivot;
+    }
+
+    /**
+     * Rotates the subtree rooted at {@code n} to the left.
+     *
+     * @param n
+     *            the root of the subtree
+     * @return the new root of the subtree
+     * @updates $this.root
+     * @requires n.right /= null
+     * @ensures [rotateLeft is the root of a rotation of #n, with the same
+     *          labels in the same order, in the place of #n]
+     */
+    private Node<T> rotateLeft(Node<T> n) {
+        Node<T> pivot = n.right;
+        this.replaceChild(n.parent, n, pivot);
+        n.right = pivot.left;
+        if (n.right != null) {
+            n.right.parent = n;
+        }
+        pivot.left = n;
+        n.parent = pivot;
+        updateHeight(n);
+        updateHeight(pivot);
+        return pivot;
+    }
+
+    /**
+     * Walks from {@code n} up towards the root, fixing heights and rotating
+     * where the AVL property fails, until a subtree's height is unchanged.
+     *
+     * @param n
+     *            the lowest node whose subtree changed, or null
+     * @updates $this.root
+     * @requires <pre>
+     * [the tree is an AVL tree except for heights and balance on the path
+     *  from n to the root, off by at most 1 in height]
+     * </pre>
+     * @ensures IS_AVL([the tree of nodes rooted at $this.root])
+     */
+    private void rebalanceFrom(Node<T> n) {
+        Node<T> current = n;
+        boolean done = false;
+
+        while (current != null && !done) {
+            int oldHeight = current.height;
+            updateHeight(current);
+            int balance = height(current.left) - height(current.right);
+
+            if (balance > 1) {
+                // Turns a left-right case into a left-left case first
+                if (height(current.left.left) < height(current.left.right)) {
+                    this.rotateLeft(current.left);
+                }
+                current = this.rotateRight(current);
+            } else if (balance < -1) {
+                // Turns a right-left case into a right-right case first
+                if (height(current.right.right) < height(current.right.left)) {
+                    this.rotateRight(current.right);
+                }
+                current = this.rotateLeft(current);
+            } else if (current.height == oldHeight) {
+                // Nothing above can have changed
+                done = true;
+            }
+
+            current = current.parent;
+        }
+    }
+
+    /**
+     * Removes node {@code n}, which has at most one child, from the tree.
+     *
+     * @param n
+     *            the node to remove
+     * @updates this
+     * @requires n.left = null  or  n.right = null
+     * @ensures this = #this \ {n.label}
+     */
+    private void unlink(Node<T> n) {
+        Node<T> child = n.left;
+        if (child == null) {
+            child = n.right;
+        }
+        Node<T> parent = n.parent;
+        this.replaceChild(parent, n, child);
+        this.size--;
+        this.rebalanceFrom(parent);
+    }
+
+    /**
+     * Returns the node after {@code n} in order, or {@code null} if {@code n}
+     * has the largest label.
+     *
+     * @param <T>
+     *            type of labels
+     * @param n
+     *            the node
+     * @return the in-order successor of n, or null
+     * @requires n /= null
+     */
+    private static <T> Node<T> successor(Node<T> n) {
+        Node<T> next;
+        if (n.right != null) {
+            next = leftmost(n.right);
+        } else {
+            // Climbs until coming up from a left child
+            Node<T> child = n;
+            next = n.parent;
+            while (next != null && next.right == child) {
+                child = next;
+                next = next.parent;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.root = null;
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set3b() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set3b<?>
+                : "" + "Violation of: source is of dynamic type Set3b<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set3b<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set3b<T> localSource = (Set3b<T>) source;
+        this.root = localSource.root;
+        this.size = localSource.size;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        if (this.root == null) {
+            this.root = new Node<>(x, null);
+        } else {
+            // Walks down to the empty spot where x belongs
+            Node<T> parent = this.root;
+            boolean placed = false;
+            while (!placed) {
+                if (x.compareTo(parent.label) < 0) {
+                    if (parent.left == null) {
+                        parent.left = new Node<>(x, parent);
+                        placed = true;
+                    } else {
+                        parent = parent.left;
+                    }
+                } else {
+                    if (parent.right == null) {
+                        parent.right = new Node<>(x, parent);
+                        placed = true;
+                    } else {
+                        parent = parent.right;
+                    }
+                }
+            }
+            this.rebalanceFrom(parent);
+        }
+        this.size++;
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        Node<T> n = find(this.root, x);
+        T removed = n.label;
+
+        // Moves the successor's label up and removes the successor instead
+        if (n.left != null && n.right != null) {
+            Node<T> successor = leftmost(n.right);
+            n.label = successor.label;
+            n = successor;
+        }
+        this.unlink(n);
+
+        return removed;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        // Removes the smallest element, as Set3a does
+        Node<T> n = leftmost(this.root);
+        this.unlink(n);
+
+        return n.label;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        return find(this.root, x) != null;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The elements come in increasing order. The iterator holds only the next
+     * node and follows child and parent links to the one after it, so it
+     * takes O(1) space and amortized O(1) time per element.
+     */
+    @Override
+    public final Iterator<T> iterator() {
+        Node<T> first = null;
+        if (this.root != null) {
+            first = leftmost(this.root);
+        }
+        return new Set3bIterator(first);
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set3b}.
+     */
+    private final class Set3bIterator implements Iterator<T> {
+
+        /**
+         * Node {@code next} returns the label of next, or {@code null} when
+         * done.
+         */
+        private Node<T> nextNode;
+
+        /**
+         * Constructor from first node.
+         *
+         * @param first
+         *            the node with the smallest label, or null if there is none
+         */
+        Set3bIterator(Node<T> first) {
+            this.nextNode = first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.nextNode != null;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T result = this.nextNode.label;
+            this.nextNode = successor(this.nextNode);
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
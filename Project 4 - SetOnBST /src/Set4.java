@@ -0,0 +1,513 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented, for sets that are built once and then mostly
+ * searched, as a frozen array in Eytzinger (breadth-first) layout plus small
+ * buffers of recent additions and removals, with implementations of primary
+ * methods. The array holds a complete binary search tree level by level, so
+ * a search touches the same few top entries every time (they stay in cache)
+ * and needs no node pointers; the buffers are sorted sets, merged into a new
+ * array by {@code freeze}, which happens on its own once they pass an eighth
+ * of the frozen size (and at least {@code BUFFER_LIMIT} elements), so each
+ * rebuild is paid for by a number of writes proportional to its size.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @mathdefinitions <pre>
+ * FROZEN: finite set of T is
+ *  {$this.layout[i]: 1 <= i <= $this.frozenSize}
+ *
+ * IS_EYTZINGER_BST(
+ *   a: array of T,
+ *   n: integer
+ *  ): boolean satisfies
+ *  [the binary tree in which entry i of a[1, n] has children 2i and 2i + 1
+ *   (where <= n) satisfies the binary search tree properties with the
+ *   ordering reported by compareTo for T, with no duplicate labels]
+ * </pre>
+ * @convention <pre>
+ * 0 <= $this.frozenSize < |$this.layout|  and
+ * IS_EYTZINGER_BST($this.layout, $this.frozenSize)  and
+ * [$this.layout[i] = null for i = 0 and i > $this.frozenSize]  and
+ * $this.added intersection FROZEN = {}  and
+ * $this.removed is subset of FROZEN
+ * </pre>
+ * @correspondence <pre>
+ * this = (FROZEN \ $this.removed) union $this.added
+ * </pre>
+ *
+ * @author Sean-Paul Billups and Michael Hu
+ *
+ */
+public class Set4<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Least number of buffered additions and removals at which {@code freeze}
+     * runs on its own.
+     */
+    private static final int BUFFER_LIMIT = 64;
+
+    /**
+     * Frozen elements in Eytzinger layout, at positions 1 to
+     * {@code frozenSize}.
+     */
+    private Object[] layout;
+
+    /**
+     * Number of frozen elements, removed or not.
+     */
+    private int frozenSize;
+
+    /**
+     * Elements added since the last {@code freeze}.
+     */
+    private TreeSet<T> added;
+
+    /**
+     * Frozen elements removed since the last {@code freeze}.
+     */
+    private TreeSet<T> removed;
+
+    /**
+     * Returns the frozen element at position {@code i} of {@code layout}.
+     *
+     * @param <T>
+     *            type of elements
+     * @param layout
+     *            the layout array
+     * @param i
+     *            the position
+     * @return the element at position i
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T at(Object[] layout, int i) {
+        return (T) layout[i];
+    }
+
+    /**
+     * Returns the position of the smallest frozen element that is at least
+     * {@code x}, or 0 if there is none.
+     *
+     * @param x
+     *            the element to search for
+     * @return the position of the lower bound of x, or 0
+     */
+    private int lowerBound(T x) {
+        int i = 1;
+
+        // Descends one level per step, right when the entry is below x
+        while (i <= this.frozenSize) {
+            int below = 0;
+            if (Set4.<T> at(this.layout, i).compareTo(x) < 0) {
+                below = 1;
+            }
+            i = 2 * i + below;
+        }
+
+        // Undoes the right turns after the last left turn, and that left turn
+        return i >>> (Integer.numberOfTrailingZeros(~i) + 1);
+    }
+
+    /**
+     * Returns the position of the frozen element equal to {@code x}, or 0 if
+     * there is none.
+     *
+     * @param x
+     *            the element to search for
+     * @return the position of x, or 0
+     */
+    private int frozenPosition(T x) {
+        int i = this.lowerBound(x);
+        if (i != 0 && Set4.<T> at(this.layout, i).compareTo(x) != 0) {
+            i = 0;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the position after {@code i} in order in a layout of {@code n}
+     * elements, or 0 if {@code i} is the last.
+     *
+     * @param i
+     *            the position
+     * @param n
+     *            the number of elements
+     * @return the in-order successor of position i, or 0
+     * @requires 1 <= i <= n
+     */
+    private static int successor(int i, int n) {
+        int next;
+        if (2 * i + 1 <= n) {
+            // Goes right once, then left as far as possible
+            next = 2 * i + 1;
+            while (2 * next <= n) {
+                next = 2 * next;
+            }
+        } else {
+            // Climbs past right children, then once more
+            next = i >>> (Integer.numberOfTrailingZeros(~i) + 1);
+        }
+        return next;
+    }
+
+    /**
+     * Returns the position of the first element in order in a layout of
+     * {@code n} elements, or 0 if {@code n} is 0.
+     *
+     * @param n
+     *            the number of elements
+     * @return the leftmost position, or 0
+     */
+    private static int leftmost(int n) {
+        int i = 0;
+        if (n > 0) {
+            i = Integer.highestOneBit(n);
+        }
+        return i;
+    }
+
+    /**
+     * Returns the next entry of {@code it}, or null if there is none.
+     *
+     * @param <T>
+     *            type of entries
+     * @param it
+     *            the iterator
+     * @return the next entry, or null
+     * @updates it
+     */
+    private static <T> T next(Iterator<T> it) {
+        T x = null;
+        if (it.hasNext()) {
+            x = it.next();
+        }
+        return x;
+    }
+
+    /**
+     * Fills the subtree at position {@code i} of {@code layout} with
+     * {@code sorted[next, ...]} in order, and returns the position in
+     * {@code sorted} after the last element used.
+     *
+     * @param sorted
+     *            the elements, in increasing order
+     * @param next
+     *            the position in sorted of the next element to place
+     * @param layout
+     *            the layout array
+     * @param i
+     *            the position of the subtree's root
+     * @param n
+     *            the number of elements in the layout
+     * @return the position in sorted after the elements placed
+     * @updates layout
+     */
+    private static int fill(Object[] sorted, int next, Object[] layout, int i, int n) {
+        int after = next;
+        if (i <= n) {
+            after = fill(sorted, after, layout, 2 * i, n);
+            layout[i] = sorted[after];
+            after++;
+            after = fill(sorted, after, layout, 2 * i + 1, n);
+        }
+        return after;
+    }
+
+    /**
+     * Runs {@code freeze} if the buffers have grown past an eighth of the
+     * frozen size, or past {@code BUFFER_LIMIT} for small sets.
+     */
+    private void freezeIfFull() {
+        int limit = Math.max(BUFFER_LIMIT, this.frozenSize / 8);
+        if (this.added.size() + this.removed.size() > limit) {
+            this.freeze();
+        }
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.layout = new Object[1];
+        this.frozenSize = 0;
+        this.added = new TreeSet<>();
+        this.removed = new TreeSet<>();
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set4() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set4<?>
+                : "" + "Violation of: source is of dynamic type Set4<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set4<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set4<T> localSource = (Set4<T>) source;
+        this.layout = localSource.layout;
+        this.frozenSize = localSource.frozenSize;
+        this.added = localSource.added;
+        this.removed = localSource.removed;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        // Takes back a removal of a frozen element, or buffers the addition
+        if (!this.removed.remove(x)) {
+            this.added.add(x);
+        }
+        this.freezeIfFull();
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+
+        // Looks for the buffered element equal to x, so as to return that one
+        T result = this.added.ceiling(x);
+        if (result != null && result.compareTo(x) == 0) {
+            this.added.remove(result);
+        } else {
+            result = at(this.layout, this.frozenPosition(x));
+            this.removed.add(result);
+            this.freezeIfFull();
+        }
+
+        return result;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        T result = null;
+        if (!this.added.isEmpty()) {
+            result = this.added.pollLast();
+        } else {
+            /*
+             * Drops the last position of the layout, which is a leaf, so what
+             * remains is still a binary search tree; skips elements already
+             * removed
+             */
+            while (result == null) {
+                T last = at(this.layout, this.frozenSize);
+                this.layout[this.frozenSize] = null;
+                this.frozenSize--;
+                if (!this.removed.remove(last)) {
+                    result = last;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        boolean in;
+        if (this.frozenPosition(x) != 0) {
+            in = !this.removed.contains(x);
+        } else {
+            in = this.added.contains(x);
+        }
+        return in;
+    }
+
+    @Override
+    public final int size() {
+        return this.frozenSize - this.removed.size() + this.added.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Runs {@code freeze} first, then returns the elements in increasing
+     * order.
+     */
+    @Override
+    public final Iterator<T> iterator() {
+        this.freeze();
+        return new Set4Iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Merges the buffered additions and removals into a new frozen array, so
+     * that every element is found by the array search alone, in one O(|this|)
+     * merge of the array and the buffers, all three already in order.
+     *
+     * @updates $this
+     * @ensures this = #this  and  $this.added = {}  and  $this.removed = {}
+     */
+    public final void freeze() {
+        if (!this.added.isEmpty() || !this.removed.isEmpty()) {
+            Object[] sorted = new Object[this.size()];
+
+            /*
+             * Merges the frozen elements, skipping removed ones, with added;
+             * all three come in increasing order
+             */
+            Iterator<T> addedIt = this.added.iterator();
+            T nextAdded = next(addedIt);
+            Iterator<T> removedIt = this.removed.iterator();
+            T nextRemoved = next(removedIt);
+            int k = 0;
+            int i = leftmost(this.frozenSize);
+            while (i != 0) {
+                T x = at(this.layout, i);
+                if (nextRemoved != null && nextRemoved.compareTo(x) == 0) {
+                    nextRemoved = next(removedIt);
+                } else {
+                    while (nextAdded != null && nextAdded.compareTo(x) < 0) {
+                        sorted[k] = nextAdded;
+                        k++;
+                        nextAdded = next(addedIt);
+                    }
+                    sorted[k] = x;
+                    k++;
+                }
+                i = successor(i, this.frozenSize);
+            }
+            while (nextAdded != null) {
+                sorted[k] = nextAdded;
+                k++;
+                nextAdded = next(addedIt);
+            }
+
+            this.frozenSize = sorted.length;
+            this.layout = new Object[this.frozenSize + 1];
+            fill(sorted, 0, this.layout, 1, this.frozenSize);
+            this.added.clear();
+            this.removed.clear();
+        }
+    }
+
+    /**
+     * Adds every entry of {@code elements} to {@code this} and then runs
+     * {@code freeze} once, in O(|this| + m log m) time for m entries, where
+     * adding them one at a time would rebuild the array several times.
+     *
+     * @param elements
+     *            the elements to be added
+     * @aliases references in {@code elements}
+     * @updates this
+     * @requires [the entries of elements are distinct and not in this]
+     * @ensures this = #this union [entries of elements]
+     */
+    public final void addAll(Iterable<T> elements) {
+        assert elements != null : "Violation of: elements is not null";
+
+        for (T x : elements) {
+            assert x != null : "Violation of: x is not null";
+            assert !this.contains(x) : "Violation of: x is not in this";
+            if (!this.removed.remove(x)) {
+                this.added.add(x);
+            }
+        }
+        this.freeze();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set4}, which
+     * walks the frozen array in order.
+     */
+    private final class Set4Iterator implements Iterator<T> {
+
+        /**
+         * Position of the element {@code next} returns next, or 0 when done.
+         */
+        private int position;
+
+        /**
+         * No-argument constructor.
+         */
+        Set4Iterator() {
+            this.position = leftmost(Set4.this.frozenSize);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.position != 0;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T result = at(Set4.this.layout, this.position);
+            this.position = successor(this.position, Set4.this.frozenSize);
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
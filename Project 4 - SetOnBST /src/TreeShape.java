@@ -0,0 +1,139 @@
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Snapshot of the shape of a binary search tree, as measured by
+ * {@code Set3a.shape}: its height, the average depth of its nodes, how many
+ * nodes have each balance factor, and the labels on a longest path from the
+ * root. A tree of n nodes built from sorted input has height n and average
+ * depth (n - 1) / 2, where a balanced one has height about log2(n).
+ *
+ * @param <T>
+ *            type of tree labels
+ *
+ * @author Sean-Paul Billups and Michael Hu
+ *
+ */
+public final class TreeShape<T> {
+
+    /**
+     * Number of nodes.
+     */
+    private final int size;
+
+    /**
+     * Number of nodes on a longest path from the root.
+     */
+    private final int height;
+
+    /**
+     * Sum of the depths of all nodes, the root having depth 0.
+     */
+    private final long totalDepth;
+
+    /**
+     * Number of nodes with each balance factor.
+     */
+    private final SortedMap<Integer, Integer> balanceHistogram;
+
+    /**
+     * Labels on a longest path, from the root down.
+     */
+    private final List<T> longestPath;
+
+    /**
+     * Constructor from the measurements.
+     *
+     * @param size
+     *            the number of nodes
+     * @param totalDepth
+     *            the sum of the depths of all nodes
+     * @param balanceHistogram
+     *            the number of nodes with each balance factor
+     * @param longestPath
+     *            the labels on a longest path, from the root down
+     */
+    TreeShape(int size, long totalDepth, SortedMap<Integer, Integer> balanceHistogram,
+            List<T> longestPath) {
+        this.size = size;
+        this.height = longestPath.size();
+        this.totalDepth = totalDepth;
+        this.balanceHistogram = Collections.unmodifiableSortedMap(balanceHistogram);
+        this.longestPath = Collections.unmodifiableList(longestPath);
+    }
+
+    /**
+     * Reports the number of nodes.
+     *
+     * @return the number of nodes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Reports the height: the number of nodes on a longest path from the
+     * root, 0 for an empty tree.
+     *
+     * @return the height
+     */
+    public int height() {
+        return this.height;
+    }
+
+    /**
+     * Reports the average depth of the nodes, the root having depth 0; this
+     * is the average number of comparisons, less one, of a successful search.
+     * Reports 0 for an empty tree.
+     *
+     * @return the average node depth
+     */
+    public double averageDepth() {
+        double average = 0;
+        if (this.size > 0) {
+            average = (double) this.totalDepth / this.size;
+        }
+        return average;
+    }
+
+    /**
+     * Reports how many nodes have each balance factor (the height of the left
+     * subtree less the height of the right subtree). Balance factors no node
+     * has are left out.
+     *
+     * @return the unmodifiable histogram, by increasing balance factor
+     */
+    public SortedMap<Integer, Integer> balanceHistogram() {
+        return this.balanceHistogram;
+    }
+
+    /**
+     * Reports the labels on a longest path from the root down to a leaf,
+     * leftmost among the longest.
+     *
+     * @return the unmodifiable list of labels, root first
+     */
+    public List<T> longestPath() {
+        return this.longestPath;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Gives only the least and greatest balance factors, since a degenerate
+     * tree has as many distinct ones as nodes.
+     */
+    @Override
+    public String toString() {
+        String balance = "none";
+        if (!this.balanceHistogram.isEmpty()) {
+            balance = this.balanceHistogram.firstKey() + ".."
+                    + this.balanceHistogram.lastKey();
+        }
+        return "size=" + this.size + " height=" + this.height + " averageDepth="
+                + String.format("%.2f", this.averageDepth()) + " balance=" + balance;
+    }
+
+}
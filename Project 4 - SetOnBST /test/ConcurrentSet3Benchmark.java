@@ -0,0 +1,231 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Times a mix of lookups, additions, and removals of random keys made from
+ * 1, 2, 4, ... threads (up to the number of processors) on a
+ * {@code ConcurrentSet3} and on a {@code Set3a} guarded by one lock, and
+ * reports the throughput of each. Every thread makes the same number of
+ * calls, so with more threads more work is done in all.
+ *
+ * @author Sean-Paul Billups and Michael Hu
+ *
+ */
+public final class ConcurrentSet3Benchmark {
+
+    /**
+     * Number of calls made by each thread.
+     */
+    private static final int CALLS_PER_THREAD = 200_000;
+
+    /**
+     * Keys are drawn from 0 to {@code KEYS - 1}.
+     */
+    private static final int KEYS = 10_000;
+
+    /**
+     * Percentage of calls that are lookups; the rest are split evenly
+     * between additions and removals.
+     */
+    private static final int LOOKUP_PERCENT = 80;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ConcurrentSet3Benchmark() {
+    }
+
+    /**
+     * The calls measured, so that both sets run the same worker code.
+     */
+    private interface Target {
+
+        /**
+         * Reports whether {@code x} is in the set.
+         *
+         * @param x
+         *            the key
+         * @return true if x is in the set
+         */
+        boolean contains(Integer x);
+
+        /**
+         * Adds {@code x} if it is absent.
+         *
+         * @param x
+         *            the key
+         * @return true if x was added
+         */
+        boolean addIfAbsent(Integer x);
+
+        /**
+         * Removes {@code x} if it is present.
+         *
+         * @param x
+         *            the key
+         * @return true if x was removed
+         */
+        boolean removeIfPresent(Integer x);
+
+    }
+
+    /**
+     * Returns a {@code Target} on a new {@code ConcurrentSet3}.
+     *
+     * @return the target
+     */
+    private static Target concurrentSet() {
+        final ConcurrentSet3<Integer> s = new ConcurrentSet3<>();
+        return new Target() {
+
+            @Override
+            public boolean contains(Integer x) {
+                return s.contains(x);
+            }
+
+            @Override
+            public boolean addIfAbsent(Integer x) {
+                return s.addIfAbsent(x);
+            }
+
+            @Override
+            public boolean removeIfPresent(Integer x) {
+                return s.removeIfPresent(x);
+            }
+
+        };
+    }
+
+    /**
+     * Returns a {@code Target} on a new {@code Set3a}, every call holding the
+     * set's lock.
+     *
+     * @return the target
+     */
+    private static Target lockedSet() {
+        final Set3a<Integer> s = new Set3a<>();
+        return new Target() {
+
+            @Override
+            public boolean contains(Integer x) {
+                synchronized (s) {
+                    return s.contains(x);
+                }
+            }
+
+            @Override
+            public boolean addIfAbsent(Integer x) {
+                synchronized (s) {
+                    return s.addIfAbsent(x);
+                }
+            }
+
+            @Override
+            public boolean removeIfPresent(Integer x) {
+                synchronized (s) {
+                    return s.removeIfPresent(x);
+                }
+            }
+
+        };
+    }
+
+    /**
+     * Returns the even keys below {@code KEYS} in an order shuffled with a
+     * fixed seed, so that the {@code Set3a} they are added to is not built
+     * from sorted input into a list-shaped tree.
+     *
+     * @return the shuffled even keys
+     */
+    private static Integer[] shuffledEvenKeys() {
+        Integer[] keys = new Integer[KEYS / 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 2 * i;
+        }
+        Random random = new Random(KEYS);
+        for (int i = keys.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+        return keys;
+    }
+
+    /**
+     * Fills {@code target} with half the keys, in random order, then runs
+     * {@code CALLS_PER_THREAD} calls from each of {@code threads} threads, and
+     * returns the nanoseconds the calls took.
+     *
+     * @param target
+     *            the empty set to use
+     * @param threads
+     *            the number of threads
+     * @return the elapsed nanoseconds
+     * @throws InterruptedException
+     *             if interrupted while waiting for the workers
+     */
+    private static long run(Target target, int threads) throws InterruptedException {
+        for (Integer k : shuffledEvenKeys()) {
+            target.addIfAbsent(k);
+        }
+
+        List<Thread> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            final Random random = new Random(t);
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                    Integer k = random.nextInt(KEYS);
+                    int kind = random.nextInt(100);
+                    if (kind < LOOKUP_PERCENT) {
+                        target.contains(k);
+                    } else if (kind % 2 == 0) {
+                        target.addIfAbsent(k);
+                    } else {
+                        target.removeIfPresent(k);
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     * @throws InterruptedException
+     *             if interrupted while waiting for the workers
+     */
+    public static void main(String[] args) throws InterruptedException {
+        SimpleWriter out = new SimpleWriter1L();
+
+        // Warms up the code paths before measuring
+        run(concurrentSet(), 1);
+        run(lockedSet(), 1);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        out.println("threads\tConcurrentSet3 Mcalls/s\tlocked Set3a Mcalls/s");
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            double calls = (double) threads * CALLS_PER_THREAD;
+            long concurrent = run(concurrentSet(), threads);
+            long locked = run(lockedSet(), threads);
+            out.println(threads + "\t" + (calls * 1_000 / concurrent) + "\t"
+                    + (calls * 1_000 / locked));
+        }
+
+        out.close();
+    }
+
+}
@@ -0,0 +1,130 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code ConcurrentSet3}.
+ */
+public class ConcurrentSet3Test extends SetTest1 {
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new ConcurrentSet3<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Tests that addIfAbsent and removeIfPresent, called from several threads
+     * at once, each succeed exactly once per element. No thread starts
+     * removing until every thread has finished adding, so no key removed can
+     * be added again.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting for the workers
+     */
+    @Test
+    public final void testConcurrentAddIfAbsentRemoveIfPresent()
+            throws InterruptedException {
+        /*
+         * Set up variables
+         */
+        final int threads = 4;
+        final int keys = 1_000;
+        ConcurrentSet3<Integer> s = new ConcurrentSet3<>();
+        int[] adds = new int[threads];
+        int[] removes = new int[threads];
+        CyclicBarrier addsDone = new CyclicBarrier(threads);
+        List<Thread> workers = new ArrayList<>();
+
+        /*
+         * Call methods under test, every thread trying every key
+         */
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            Thread worker = new Thread(() -> {
+                for (int k = 0; k < keys; k++) {
+                    if (s.addIfAbsent(k)) {
+                        adds[id]++;
+                    }
+                }
+                try {
+                    addsDone.await();
+                } catch (InterruptedException | BrokenBarrierException e) {
+                    throw new AssertionError(e);
+                }
+                for (int k = 0; k < keys; k += 2) {
+                    if (s.removeIfPresent(k)) {
+                        removes[id]++;
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        int totalAdds = 0;
+        int totalRemoves = 0;
+        for (int t = 0; t < threads; t++) {
+            totalAdds += adds[t];
+            totalRemoves += removes[t];
+        }
+        assertEquals(keys, totalAdds);
+        assertEquals(keys / 2, totalRemoves);
+        assertEquals(keys / 2, s.size());
+        int expected = 1;
+        for (Integer x : s) {
+            assertEquals(expected, x.intValue());
+            expected += 2;
+        }
+        assertEquals(keys + 1, expected);
+    }
+
+    /**
+     * Tests that remove returns the element stored, not the argument, when
+     * the two are equal but different objects.
+     */
+    @Test
+    public final void testRemoveReturnsStoredElement() {
+        /*
+         * Set up variables
+         */
+        String stored = new String("green");
+        String argument = new String("green");
+        ConcurrentSet3<String> s = new ConcurrentSet3<>();
+        s.add("blue");
+        s.add(stored);
+        s.add("red");
+
+        /*
+         * Call method under test
+         */
+        String removed = s.remove(argument);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertSame(stored, removed);
+        assertEquals(2, s.size());
+        assertEquals(false, s.contains("green"));
+    }
+
+}
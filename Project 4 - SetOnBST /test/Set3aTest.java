@@ -1,3 +1,15 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
 import components.set.Set;
 import components.set.Set1L;
 
@@ -16,4 +28,431 @@ public class Set3aTest extends SetTest1 {
         return new Set1L<String>();
     }
 
+    /**
+     * Tests addIfAbsent with an element that is absent and one that is
+     * present.
+     */
+    @Test
+    public final void testAddIfAbsent() {
+        /*
+         * Set up variables
+         */
+        Set3a<String> s = new Set3a<>();
+        s.add("m");
+        s.add("c");
+        Set<String> sExpected = new Set1L<>();
+        sExpected.add("m");
+        sExpected.add("c");
+        sExpected.add("x");
+
+        /*
+         * Call method under test
+         */
+        boolean addedX = s.addIfAbsent("x");
+        boolean addedC = s.addIfAbsent("c");
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(true, addedX);
+        assertEquals(false, addedC);
+        assertEquals(sExpected, s);
+    }
+
+    /**
+     * Tests removeIfPresent with an element that is present and one that is
+     * absent.
+     */
+    @Test
+    public final void testRemoveIfPresent() {
+        /*
+         * Set up variables
+         */
+        Set3a<String> s = new Set3a<>();
+        s.add("m");
+        s.add("c");
+        s.add("x");
+        Set<String> sExpected = new Set1L<>();
+        sExpected.add("c");
+        sExpected.add("x");
+
+        /*
+         * Call method under test
+         */
+        boolean removedM = s.removeIfPresent("m");
+        boolean removedA = s.removeIfPresent("a");
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(true, removedM);
+        assertEquals(false, removedA);
+        assertEquals(sExpected, s);
+    }
+
+    /**
+     * Creates and returns a {@code Set3a<String>} with the given entries.
+     *
+     * @param args
+     *            the entries for the set
+     * @return the constructed set
+     * @requires [every entry in args is unique]
+     * @ensures createSet3a = [entries in args]
+     */
+    private static Set3a<String> createSet3a(String... args) {
+        Set3a<String> set = new Set3a<>();
+        for (String s : args) {
+            set.add(s);
+        }
+        return set;
+    }
+
+    /**
+     * Tests floor, ceiling, first, and last.
+     */
+    @Test
+    public final void testFloorCeilingFirstLast() {
+        /*
+         * Set up variables
+         */
+        Set3a<String> s = createSet3a("m", "c", "x", "f");
+
+        /*
+         * Call methods under test and assert that values of variables match
+         * expectations
+         */
+        assertEquals("f", s.floor("g"));
+        assertEquals("m", s.floor("m"));
+        assertEquals(null, s.floor("a"));
+        assertEquals("m", s.ceiling("g"));
+        assertEquals("c", s.ceiling("c"));
+        assertEquals(null, s.ceiling("y"));
+        assertEquals("c", s.first());
+        assertEquals("x", s.last());
+        assertEquals(createSet3a("m", "c", "x", "f"), s);
+    }
+
+    /**
+     * Tests rank and select.
+     */
+    @Test
+    public final void testRankSelect() {
+        /*
+         * Set up variables
+         */
+        Set3a<String> s = createSet3a("m", "c", "x", "f", "p");
+
+        /*
+         * Call methods under test and assert that values of variables match
+         * expectations
+         */
+        assertEquals(0, s.rank("a"));
+        assertEquals(2, s.rank("m"));
+        assertEquals(3, s.rank("n"));
+        assertEquals(5, s.rank("z"));
+        assertEquals("c", s.select(0));
+        assertEquals("m", s.select(2));
+        assertEquals("x", s.select(4));
+        assertEquals(createSet3a("m", "c", "x", "f", "p"), s);
+    }
+
+    /**
+     * Tests rangeIterator.
+     */
+    @Test
+    public final void testRangeIterator() {
+        /*
+         * Set up variables
+         */
+        Set3a<String> s = createSet3a("m", "c", "x", "f", "p");
+        StringBuilder inRange = new StringBuilder();
+
+        /*
+         * Call method under test
+         */
+        Iterator<String> it = s.rangeIterator("d", "p");
+        while (it.hasNext()) {
+            inRange.append(it.next());
+        }
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("fm", inRange.toString());
+        assertEquals(createSet3a("m", "c", "x", "f", "p"), s);
+    }
+
+    /**
+     * Tests that iterator returns the elements in increasing order.
+     */
+    @Test
+    public final void testIteratorAscending() {
+        /*
+         * Set up variables
+         */
+        Set3a<String> s = createSet3a("m", "c", "x", "f", "p");
+        StringBuilder elements = new StringBuilder();
+
+        /*
+         * Call method under test
+         */
+        for (String x : s) {
+            elements.append(x);
+        }
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("cfmpx", elements.toString());
+        assertEquals(createSet3a("m", "c", "x", "f", "p"), s);
+    }
+
+    /**
+     * Key that counts the calls to {@code compareTo} on any key.
+     */
+    private static final class CountedKey implements Comparable<CountedKey> {
+
+        /**
+         * Number of calls to {@code compareTo} so far.
+         */
+        private static long comparisons = 0;
+
+        /**
+         * The value compared.
+         */
+        private final int value;
+
+        /**
+         * Constructor from value.
+         *
+         * @param value
+         *            the value
+         */
+        CountedKey(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(CountedKey other) {
+            comparisons++;
+            return Integer.compare(this.value, other.value);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CountedKey && ((CountedKey) obj).value == this.value;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.value;
+        }
+
+    }
+
+    /**
+     * Tests that stopping a range iteration early does not pay for the
+     * elements never reached.
+     */
+    @Test
+    public final void testRangeIteratorStopsEarly() {
+        /*
+         * Set up variables
+         */
+        final int n = 10_000;
+        final int wanted = 3;
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(n));
+        Set3a<CountedKey> s = new Set3a<>();
+        for (int i : order) {
+            s.addIfAbsent(new CountedKey(i));
+        }
+        List<Integer> first = new ArrayList<>();
+
+        /*
+         * Call method under test
+         */
+        CountedKey.comparisons = 0;
+        Iterator<CountedKey> it = s.rangeIterator(new CountedKey(0), new CountedKey(n));
+        while (first.size() < wanted && it.hasNext()) {
+            first.add(it.next().value);
+        }
+        long comparisons = CountedKey.comparisons;
+
+        /*
+         * Assert that values of variables match expectations; listing the
+         * whole range would take two comparisons per element
+         */
+        assertEquals(Arrays.asList(0, 1, 2), first);
+        assertTrue("comparisons: " + comparisons, comparisons < n / 10);
+        assertEquals(n, s.size());
+    }
+
+    /**
+     * Tests iterator and rangeIterator on a tree built from sorted input,
+     * which takes many batches.
+     */
+    @Test
+    public final void testIteratorDegenerateTree() {
+        /*
+         * Set up variables
+         */
+        final int n = 2_000;
+        final int lo = 100;
+        final int hi = 1_900;
+        Set3a<Integer> s = new Set3a<>();
+        for (int i = 0; i < n; i++) {
+            s.add(i);
+        }
+        int expected = 0;
+        int inRange = 0;
+
+        /*
+         * Call methods under test
+         */
+        for (Integer x : s) {
+            assertEquals(expected, x.intValue());
+            expected++;
+        }
+        Iterator<Integer> it = s.rangeIterator(lo, hi);
+        while (it.hasNext()) {
+            assertEquals(lo + inRange, it.next().intValue());
+            inRange++;
+        }
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(n, expected);
+        assertEquals(hi - lo, inRange);
+        assertEquals(n, s.size());
+        assertEquals(n, s.shape().height());
+    }
+
+    /**
+     * Tests union, intersection, and difference.
+     */
+    @Test
+    public final void testUnionIntersectionDifference() {
+        /*
+         * Set up variables
+         */
+        Set3a<String> s1 = createSet3a("m", "c", "x", "f");
+        Set3a<String> s2 = createSet3a("f", "a", "x", "q");
+
+        /*
+         * Call methods under test
+         */
+        Set3a<String> union = s1.union(s2);
+        Set3a<String> intersection = s1.intersection(s2);
+        Set3a<String> difference = s1.difference(s2);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(createSet3a("a", "c", "f", "m", "q", "x"), union);
+        assertEquals(createSet3a("f", "x"), intersection);
+        assertEquals(createSet3a("c", "m"), difference);
+        assertEquals(createSet3a("m", "c", "x", "f"), s1);
+        assertEquals(createSet3a("f", "a", "x", "q"), s2);
+    }
+
+    /**
+     * Tests addAll, retainAll, and removeAll.
+     */
+    @Test
+    public final void testInPlaceBulkOperations() {
+        /*
+         * Set up variables
+         */
+        Set3a<String> added = createSet3a("m", "c", "x", "f");
+        Set3a<String> retained = createSet3a("m", "c", "x", "f");
+        Set3a<String> removed = createSet3a("m", "c", "x", "f");
+        Set3a<String> s = createSet3a("f", "a", "x", "q");
+
+        /*
+         * Call methods under test
+         */
+        added.addAll(s);
+        retained.retainAll(s);
+        removed.removeAll(s);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(createSet3a("a", "c", "f", "m", "q", "x"), added);
+        assertEquals(createSet3a("f", "x"), retained);
+        assertEquals(createSet3a("c", "m"), removed);
+        assertEquals(createSet3a("f", "a", "x", "q"), s);
+    }
+
+    /**
+     * Tests shape on a small tree and on a degenerate one.
+     */
+    @Test
+    public final void testShape() {
+        /*
+         * Set up variables
+         */
+        Set3a<String> s = createSet3a("m", "f", "x", "c", "h", "z", "a");
+        Set3a<String> sorted = createSet3a("a", "b", "c", "d");
+
+        /*
+         * Call method under test
+         */
+        TreeShape<String> shape = s.shape();
+        TreeShape<String> sortedShape = sorted.shape();
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(7, shape.size());
+        assertEquals(4, shape.height());
+        assertEquals(11.0 / 7, shape.averageDepth(), 1e-9);
+        assertEquals(Arrays.asList("m", "f", "c", "a"), shape.longestPath());
+        assertEquals(Integer.valueOf(3), shape.balanceHistogram().get(1));
+        assertEquals(Integer.valueOf(3), shape.balanceHistogram().get(0));
+        assertEquals(Integer.valueOf(1), shape.balanceHistogram().get(-1));
+        assertEquals(4, sortedShape.height());
+        assertEquals(1.5, sortedShape.averageDepth(), 1e-9);
+        assertEquals(Integer.valueOf(1), sortedShape.balanceHistogram().get(-3));
+        assertEquals(createSet3a("m", "f", "x", "c", "h", "z", "a"), s);
+    }
+
+    /**
+     * Tests that setShapeReporter reports once per period of updates, not
+     * counting calls that leave the set as it was.
+     */
+    @Test
+    public final void testShapeReporter() {
+        /*
+         * Set up variables
+         */
+        Set3a<String> s = new Set3a<>();
+        List<Integer> heights = new ArrayList<>();
+
+        /*
+         * Call methods under test
+         */
+        s.setShapeReporter(2, shape -> heights.add(shape.height()));
+        s.add("a");
+        s.add("b");
+        s.add("c");
+        s.addIfAbsent("d");
+        s.addIfAbsent("d");
+        s.removeIfPresent("e");
+        s.remove("a");
+        s.setShapeReporter(1, null);
+        s.removeAny();
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(Arrays.asList(2, 4), heights);
+        assertEquals(createSet3a("c", "d"), s);
+    }
+
 }
@@ -0,0 +1,19 @@
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set3b}.
+ */
+public class Set3bTest extends SetTest1 {
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set3b<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+}
@@ -0,0 +1,90 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set4}.
+ */
+public class Set4Test extends SetTest1 {
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set4<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Tests addAll on a set with buffered changes.
+     */
+    @Test
+    public final void testAddAll() {
+        /*
+         * Set up variables
+         */
+        Set4<String> s = new Set4<>();
+        s.add("m");
+        s.add("c");
+        s.freeze();
+        s.remove("c");
+        Set<String> sExpected = new Set1L<>();
+        sExpected.add("m");
+        sExpected.add("c");
+        sExpected.add("x");
+        sExpected.add("a");
+
+        /*
+         * Call method under test
+         */
+        s.addAll(Arrays.asList("x", "c", "a"));
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sExpected, s);
+    }
+
+    /**
+     * Tests add, remove, and contains across several automatic freezes.
+     */
+    @Test
+    public final void testManyAddsAndRemoves() {
+        /*
+         * Set up variables
+         */
+        final int n = 1_000;
+        Set4<Integer> s = new Set4<>();
+        Set<Integer> sExpected = new Set1L<>();
+
+        /*
+         * Call methods under test
+         */
+        for (int i = 0; i < n; i++) {
+            s.add((i * 7) % n);
+        }
+        for (int i = 0; i < n; i += 3) {
+            s.remove(i);
+        }
+        for (int i = 0; i < n; i++) {
+            if (i % 3 != 0) {
+                sExpected.add(i);
+            }
+        }
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(false, s.contains(999));
+        assertEquals(true, s.contains(998));
+        assertEquals(sExpected, s);
+    }
+
+}
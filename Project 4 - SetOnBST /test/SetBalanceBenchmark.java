@@ -0,0 +1,119 @@
+import java.util.Random;
+
+import components.set.Set;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Times {@code contains} on a {@code Set3a} and a {@code Set3b} built from
+ * keys added in sorted, reverse-sorted, and random order, at doubling sizes.
+ * The time per lookup should grow by a constant step per doubling for
+ * {@code Set3b} in every order, and for {@code Set3a} only in random order; in
+ * sorted order {@code Set3a} is a list, and the time per lookup doubles.
+ *
+ * @author Sean-Paul Billups and Michael Hu
+ *
+ */
+public final class SetBalanceBenchmark {
+
+    /**
+     * Sizes of the sets measured.
+     */
+    private static final int[] SIZES = { 500, 1_000, 2_000, 4_000 };
+
+    /**
+     * Number of lookups per measurement.
+     */
+    private static final int LOOKUPS = 200_000;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SetBalanceBenchmark() {
+    }
+
+    /**
+     * Returns the keys 0 to {@code n - 1} in the given order.
+     *
+     * @param n
+     *            the number of keys
+     * @param order
+     *            "sorted", "reverse", or "random"
+     * @return the keys
+     */
+    private static Integer[] keys(int n, String order) {
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i;
+        }
+        if (order.equals("reverse")) {
+            for (int i = 0; i < n; i++) {
+                keys[i] = n - 1 - i;
+            }
+        } else if (order.equals("random")) {
+            Random random = new Random(n);
+            for (int i = n - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                Integer tmp = keys[i];
+                keys[i] = keys[j];
+                keys[j] = tmp;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the average nanoseconds per {@code contains} call on {@code s}
+     * after adding {@code keys} to it in order.
+     *
+     * @param s
+     *            the empty set to fill
+     * @param keys
+     *            the keys, 0 to |keys| - 1 in some order
+     * @return the average time per lookup
+     */
+    private static double nanosPerLookup(Set<Integer> s, Integer[] keys) {
+        for (Integer k : keys) {
+            s.add(k);
+        }
+
+        int found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (s.contains(i % keys.length)) {
+                found++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assert found == LOOKUPS;
+        return (double) elapsed / LOOKUPS;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        // Runs once untimed so that both classes are compiled before measuring
+        nanosPerLookup(new Set3a<Integer>(), keys(SIZES[0], "random"));
+        nanosPerLookup(new Set3b<Integer>(), keys(SIZES[0], "random"));
+
+        out.println("order\tn\tSet3a ns/lookup\tSet3b ns/lookup");
+        for (String order : new String[] { "sorted", "reverse", "random" }) {
+            for (int n : SIZES) {
+                Integer[] keys = keys(n, order);
+                out.println(order + "\t" + n + "\t"
+                        + nanosPerLookup(new Set3a<Integer>(), keys) + "\t"
+                        + nanosPerLookup(new Set3b<Integer>(), keys));
+            }
+        }
+
+        out.close();
+    }
+
+}
@@ -0,0 +1,126 @@
+import java.util.Arrays;
+import java.util.Random;
+
+import components.set.Set;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Times {@code contains} on a {@code Set3a}, a {@code Set3b}, and a frozen
+ * {@code Set4} holding the same random keys, with half the lookups hitting and
+ * half missing. Once the set outgrows the cache, the pointer-based trees pay
+ * a cache miss at most levels, while {@code Set4}'s array keeps its top
+ * levels together.
+ *
+ * @author Sean-Paul Billups and Michael Hu
+ *
+ */
+public final class SetLookupBenchmark {
+
+    /**
+     * Sizes of the sets measured.
+     */
+    private static final int[] SIZES = { 10_000, 100_000, 1_000_000 };
+
+    /**
+     * Number of lookups per measurement.
+     */
+    private static final int LOOKUPS = 2_000_000;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SetLookupBenchmark() {
+    }
+
+    /**
+     * Returns {@code n} distinct random even keys.
+     *
+     * @param n
+     *            the number of keys
+     * @return the keys
+     */
+    private static Integer[] randomEvenKeys(int n) {
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = 2 * i;
+        }
+        Random random = new Random(n);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the average nanoseconds per {@code contains} call on {@code s}
+     * for random keys in {@code [0, 2n)}, after adding {@code keys}.
+     *
+     * @param s
+     *            the empty set to fill
+     * @param keys
+     *            the keys to add
+     * @return the average time per lookup
+     */
+    private static double nanosPerLookup(Set<Integer> s, Integer[] keys) {
+        if (s instanceof Set4<?>) {
+
+            // Builds the array once, as a read-mostly set would be loaded
+            @SuppressWarnings("unchecked")
+            Set4<Integer> frozen = (Set4<Integer>) s;
+            frozen.addAll(Arrays.asList(keys));
+        } else {
+            for (Integer k : keys) {
+                s.add(k);
+            }
+        }
+
+        Random random = new Random(1);
+        Integer[] probes = new Integer[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            probes[i] = random.nextInt(2 * keys.length);
+        }
+
+        int found = 0;
+        long start = System.nanoTime();
+        for (Integer p : probes) {
+            if (s.contains(p)) {
+                found++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assert found > 0;
+        return (double) elapsed / LOOKUPS;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        // Runs once untimed so that every class is compiled before measuring
+        Integer[] warmUp = randomEvenKeys(SIZES[0]);
+        nanosPerLookup(new Set3a<Integer>(), warmUp);
+        nanosPerLookup(new Set3b<Integer>(), warmUp);
+        nanosPerLookup(new Set4<Integer>(), warmUp);
+
+        out.println("n\tSet3a ns/lookup\tSet3b ns/lookup\tSet4 ns/lookup");
+        for (int n : SIZES) {
+            Integer[] keys = randomEvenKeys(n);
+            out.println(n + "\t" + nanosPerLookup(new Set3a<Integer>(), keys) + "\t"
+                    + nanosPerLookup(new Set3b<Integer>(), keys) + "\t"
+                    + nanosPerLookup(new Set4<Integer>(), keys));
+        }
+
+        out.close();
+    }
+
+}
@@ -0,0 +1,112 @@
+import java.util.Random;
+
+import components.set.Set;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Times {@code add}, {@code contains}, and {@code remove} on a {@code Set3a}
+ * and a {@code Set3b} holding random keys, at sizes growing tenfold.
+ * {@code Set3a} disassembles and reassembles a {@code BinaryTree} at every
+ * level of every call, allocating two new trees per level, while
+ * {@code Set3b} walks its own nodes in a loop.
+ *
+ * @author Sean-Paul Billups and Michael Hu
+ *
+ */
+public final class SetOperationBenchmark {
+
+    /**
+     * Sizes of the sets measured.
+     */
+    private static final int[] SIZES = { 1_000, 10_000, 100_000 };
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SetOperationBenchmark() {
+    }
+
+    /**
+     * Returns the keys 0 to {@code n - 1} in random order.
+     *
+     * @param n
+     *            the number of keys
+     * @return the keys
+     */
+    private static Integer[] shuffledKeys(int n) {
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i;
+        }
+        Random random = new Random(n);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+        return keys;
+    }
+
+    /**
+     * Adds, looks up, and removes {@code keys} in {@code s}, and returns the
+     * average nanoseconds per call of each, separated by tabs.
+     *
+     * @param s
+     *            the empty set to use
+     * @param keys
+     *            the distinct keys
+     * @return the average times per add, contains, and remove
+     */
+    private static String nanosPerOperation(Set<Integer> s, Integer[] keys) {
+        long start = System.nanoTime();
+        for (Integer k : keys) {
+            s.add(k);
+        }
+        long addTime = System.nanoTime() - start;
+
+        int found = 0;
+        start = System.nanoTime();
+        for (Integer k : keys) {
+            if (s.contains(k)) {
+                found++;
+            }
+        }
+        long containsTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Integer k : keys) {
+            s.remove(k);
+        }
+        long removeTime = System.nanoTime() - start;
+
+        assert found == keys.length && s.size() == 0;
+        return addTime / keys.length + "\t" + containsTime / keys.length + "\t"
+                + removeTime / keys.length;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        // Runs once untimed so that both classes are compiled before measuring
+        nanosPerOperation(new Set3a<Integer>(), shuffledKeys(SIZES[1]));
+        nanosPerOperation(new Set3b<Integer>(), shuffledKeys(SIZES[1]));
+
+        out.println("n\tSet3a ns/add\tcontains\tremove\tSet3b ns/add\tcontains\tremove");
+        for (int n : SIZES) {
+            Integer[] keys = shuffledKeys(n);
+            out.println(n + "\t" + nanosPerOperation(new Set3a<Integer>(), keys) + "\t\t"
+                    + nanosPerOperation(new Set3b<Integer>(), keys));
+        }
+
+        out.close();
+    }
+
+}
@@ -94,6 +94,12 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      */
     private int heapSize;
 
+    /**
+     * Whether {@code removeFirst} restores the heap with
+     * {@code siftDownBottomUp} rather than {@code siftDown}.
+     */
+    private boolean bottomUp;
+
     /**
      * Exchanges entries at indices {@code i} and {@code j} of {@code array}.
      *
@@ -177,175 +183,119 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
                 : "" + "Violation of: SUBTREE_IS_HEAP(array, 2 * top + 2, last,"
                         + " [relation computed by order.compare method])";
 
-        // Assigns left and right values to the children of the root value
-        int left = (2 * top) + 1;
-        int right = left + 1;
-
         /*
-         * If the root value is greater than its left child, then it will
-         * exchange entries with the child value then continue to recursively
-         * sift down the left subtree.
+         * Holds the root aside and moves the smaller child up into the hole
+         * until neither child is smaller than the root or the hole has no
+         * children through last; each level costs one move, not a swap
          */
-        if (order.compare(array[top], array[left]) > 0) {
-
-            exchangeEntries(array, top, left);
-            siftDown(array, left, last, order);
-
-        } else if (order.compare(array[top], array[right]) > 0) {
-
-            /*
-             * Else if the root value is greater than its right child, then it
-             * will exchange entries with the child value then continue to
-             * recursively sift down the right subtree.
-             */
-
-            exchangeEntries(array, top, right);
-            siftDown(array, right, last, order);
+        T root = array[top];
+        int hole = top;
+        boolean done = false;
+        while (!done) {
+            int child = 2 * hole + 1;
+            if (child > last) {
+                done = true;
+            } else {
 
+                // Picks the smaller child, if there are two
+                if (child < last && order.compare(array[child + 1], array[child]) < 0) {
+                    child++;
+                }
+                if (order.compare(array[child], root) < 0) {
+                    array[hole] = array[child];
+                    hole = child;
+                } else {
+                    done = true;
+                }
+            }
         }
+        array[hole] = root;
 
     }
 
-//    /**
-//     * Heapifies the subtree of the given array rooted at the given {@code top}.
-//     *
-//     * @param <T>
-//     *            type of array entries
-//     * @param array
-//     *            the complete binary tree
-//     * @param top
-//     *            the index of the root of the "subtree" to heapify
-//     * @param order
-//     *            the total preorder for sorting
-//     * @updates array
-//     * @requires <pre>
-//     * 0 <= top  and
-//     * for all i: integer
-//     *     where (0 <= i  and  i < |array|)
-//     *   ([entry at position i in array is not null])  and
-//     * [subtree rooted at {@code top} is a complete binary tree]  and
-//     * IS_TOTAL_PREORDER([relation computed by order.compare method])
-//     * </pre>
-//     * @ensures <pre>
-//     * SUBTREE_IS_HEAP(array, top, |array| - 1,
-//     *     [relation computed by order.compare method])  and
-//     * perms(array, #array)
-//     * </pre>
-//     */
-//    private static <T> void heapify(T[] array, int top, Comparator<T> order) {
-//        assert array != null : "Violation of: array is not null";
-//        assert order != null : "Violation of: order is not null";
-//        assert 0 <= top : "Violation of: 0 <= top";
-//        for (int i = 0; i < array.length; i++) {
-//            assert array[i] != null
-//                    : "" + "Violation of: all entries in array are not null";
-//        }
-//        /*
-//         * Impractical to check last requires clause; no need to check the other
-//         * requires clause, because it must be true when using the array
-//         * representation for a complete binary tree.
-//         */
-//
-//        int left = 2 * top + 1;
-//        int right = left + 1;
-//
-//        if (order.compare(array[top], array[left]) > 0) {
-//
-//            exchangeEntries(array, top, left);
-//            heapify(array, left, order);
-//
-//        }
-//
-//        if (order.compare(array[top], array[right]) > 0) {
-//
-//            exchangeEntries(array, top, right);
-//            heapify(array, right, order);
-//
-//        }
-//
-//    }
-
     /**
-     * Heapifies the subtree of the given array rooted at the given {@code top}.
+     * Does what {@code siftDown} does, in the "bottom-up" way: walks down from
+     * {@code top} to a leaf, always to the smaller child, and then back up
+     * that path to where the root belongs. An entry moved to the root from
+     * the bottom of the heap usually belongs near the bottom again, so this
+     * takes about one comparison per level instead of two, which matters
+     * when comparisons cost more than moves.
      *
      * @param <T>
      *            type of array entries
      * @param array
      *            the complete binary tree
      * @param top
-     *            the index of the root of the "subtree" to heapify
+     *            the index of the root of the "subtree"
+     * @param last
+     *            the index of the last entry in the heap
      * @param order
-     *            the total preorder for sorting
+     *            total preorder for sorting
      * @updates array
      * @requires <pre>
-     * 0 <= top  and
+     * 0 <= top <= last  and  last < |array|  and
      * for all i: integer
      *     where (0 <= i  and  i < |array|)
      *   ([entry at position i in array is not null])  and
-     * [subtree rooted at {@code top} is a complete binary tree]  and
+     * SUBTREE_IS_HEAP(array, 2 * top + 1, last,
+     *     [relation computed by order.compare method])  and
+     * SUBTREE_IS_HEAP(array, 2 * top + 2, last,
+     *     [relation computed by order.compare method])  and
      * IS_TOTAL_PREORDER([relation computed by order.compare method])
      * </pre>
      * @ensures <pre>
-     * SUBTREE_IS_HEAP(array, top, |array| - 1,
+     * SUBTREE_IS_HEAP(array, top, last,
      *     [relation computed by order.compare method])  and
-     * perms(array, #array)
+     * perms(array, #array)  and
+     * SUBTREE_ARRAY_ENTRIES(array, top, last) =
+     *  SUBTREE_ARRAY_ENTRIES(#array, top, last)  and
+     * [the other entries in array are the same as in #array]
      * </pre>
      */
-    private static <T> void heapify(T[] array, int top, Comparator<T> order) {
+    private static <T> void siftDownBottomUp(T[] array, int top, int last,
+            Comparator<T> order) {
         assert array != null : "Violation of: array is not null";
         assert order != null : "Violation of: order is not null";
         assert 0 <= top : "Violation of: 0 <= top";
-        for (int i = 0; i < array.length; i++) {
-            assert array[i] != null
-                    : "" + "Violation of: all entries in array are not null";
-        }
-
-        // Initializes the left and right positions of the child elements
-        int left = 2 * top + 1;
-        int right = left + 1;
-
-        // Gathers whether the right child exists within the array
-        if (array.length < left) {
-
-            /*
-             * Recursively iterates through the array until the bottom children
-             * are found on both the right and left sides.
-             */
-            heapify(array, left, order);
-            heapify(array, right, order);
-
-            /*
-             * If the root value is greater than its left child, then it will
-             * exchange entries with the child value then continue to
-             * recursively sift down the left subtree.
-             */
-            if (order.compare(array[top], array[left]) > 0) {
-
-                exchangeEntries(array, top, left);
-                siftDown(array, left, right, order);
-
-            }
-
-            /*
-             * If the root value is greater than its right child, then it will
-             * exchange entries with the child value then continue to
-             * recursively sift down the right subtree.
-             */
-            if (order.compare(array[top], array[right]) > 0) {
-
-                exchangeEntries(array, top, right);
-                siftDown(array, right, right, order);
+        assert top <= last : "Violation of: top <= last";
+        assert last < array.length : "Violation of: last < |array|";
+        assert isHeap(array, 2 * top + 1, last, order)
+                : "" + "Violation of: SUBTREE_IS_HEAP(array, 2 * top + 1, last,"
+                        + " [relation computed by order.compare method])";
+        assert isHeap(array, 2 * top + 2, last, order)
+                : "" + "Violation of: SUBTREE_IS_HEAP(array, 2 * top + 2, last,"
+                        + " [relation computed by order.compare method])";
 
+        // Walks down to a leaf, comparing only the two children at each level
+        int leaf = top;
+        int child = 2 * leaf + 1;
+        while (child <= last) {
+            if (child < last && order.compare(array[child + 1], array[child]) < 0) {
+                child++;
             }
-        } else if (array.length < (left - 1)) {
-            // Accounts for the left child if the right does not exist
+            leaf = child;
+            child = 2 * leaf + 1;
+        }
 
-            // Exchanges the left child with the root element if necessary
-            if (order.compare(array[top], array[left]) > 0) {
-                exchangeEntries(array, top, left);
+        /*
+         * Climbs back up past the entries greater than the root; this stops
+         * at top at the latest, since the entry there is the root itself
+         */
+        T root = array[top];
+        int spot = leaf;
+        while (order.compare(array[spot], root) > 0) {
+            spot = (spot - 1) / 2;
+        }
 
-            }
+        // Puts the root at its spot and moves each entry above it up a level
+        T moving = root;
+        while (spot > top) {
+            T displaced = array[spot];
+            array[spot] = moving;
+            moving = displaced;
+            spot = (spot - 1) / 2;
         }
+        array[top] = moving;
 
     }
 
@@ -383,8 +333,16 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
             heap[i] = q.dequeue();
         }
 
-        // Assures that the array has the format of a heap
-        heapify(heap, 0, order);
+        /*
+         * Sifts down every entry that has a child, from the last one up to
+         * the root (Floyd's method); both subtrees of each are heaps by then.
+         * Most entries are near the bottom and sift only a level or two, so
+         * this takes O(|heap|) time rather than the O(|heap| log |heap|) of
+         * inserting one at a time
+         */
+        for (int top = heap.length / 2 - 1; top >= 0; top--) {
+            siftDown(heap, top, heap.length - 1, order);
+        }
 
         // Returns the array
         return heap;
@@ -528,6 +486,22 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
      *            total preorder for sorting
      */
     public SortingMachine5a(Comparator<T> order) {
+        this(order, false);
+    }
+
+    /**
+     * Constructor from order and choice of sift. With {@code bottomUp},
+     * {@code removeFirst} makes about half as many comparisons, for a few
+     * more moves; choose it when {@code order} is expensive, such as on long
+     * strings with common prefixes.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param bottomUp
+     *            whether removeFirst uses bottom-up sifting
+     */
+    public SortingMachine5a(Comparator<T> order, boolean bottomUp) {
+        this.bottomUp = bottomUp;
         this.createNewRep(order);
         assert this.conventionHolds();
     }
@@ -540,8 +514,8 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
     @Override
     public final SortingMachine<T> newInstance() {
         try {
-            return this.getClass().getConstructor(Comparator.class)
-                    .newInstance(this.machineOrder);
+            return this.getClass().getConstructor(Comparator.class, boolean.class)
+                    .newInstance(this.machineOrder, this.bottomUp);
         } catch (ReflectiveOperationException e) {
             throw new AssertionError(
                     "Cannot construct object of type " + this.getClass());
@@ -572,6 +546,7 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
         this.entries = localSource.entries;
         this.heap = localSource.heap;
         this.heapSize = localSource.heapSize;
+        this.bottomUp = localSource.bottomUp;
         localSource.createNewRep(localSource.machineOrder);
         assert this.conventionHolds();
         assert localSource.conventionHolds();
@@ -599,8 +574,8 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
         // Assigns {@code this.heap} with the value of {@code this.entries}
         this.heap = buildHeap(this.entries, this.machineOrder);
 
-        // Initializes the heap size with that of {@code this.entries}
-        this.heapSize = this.entries.length();
+        // Initializes the heap size; {@code this.entries} is empty by now
+        this.heapSize = this.heap.length;
 
         // Switches insertion mode to false
         this.insertionMode = false;
@@ -623,7 +598,11 @@ public class SortingMachine5a<T> extends SortingMachineSecondary<T> {
             exchangeEntries(this.heap, 0, this.heapSize - 1);
 
             // Sifts down the last element of the array until it is a heap again
-            siftDown(this.heap, 0, this.heapSize - 2, this.machineOrder);
+            if (this.bottomUp) {
+                siftDownBottomUp(this.heap, 0, this.heapSize - 2, this.machineOrder);
+            } else {
+                siftDown(this.heap, 0, this.heapSize - 2, this.machineOrder);
+            }
         }
 
         // Decrements the size of the heap
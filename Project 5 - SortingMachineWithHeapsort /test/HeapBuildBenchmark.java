@@ -0,0 +1,95 @@
+import java.util.Comparator;
+import java.util.Random;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Times {@code changeToExtractionMode} on a {@code SortingMachine5a} holding
+ * random entries, at sizes up to 10 million, and counts the comparisons it
+ * makes. With the heap built bottom-up both grow linearly: the time and the
+ * comparisons per entry stay about flat as the size grows, the comparisons
+ * staying under 2 per entry.
+ *
+ * @author Sean-Paul Billups and Michael Hu
+ *
+ */
+public final class HeapBuildBenchmark {
+
+    /**
+     * Sizes of the machines measured.
+     */
+    private static final int[] SIZES = { 1_000_000, 2_500_000, 5_000_000,
+            10_000_000 };
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private HeapBuildBenchmark() {
+    }
+
+    /**
+     * Integer order that counts the comparisons made.
+     */
+    private static final class CountingOrder implements Comparator<Integer> {
+
+        /**
+         * Number of comparisons made.
+         */
+        private long count;
+
+        @Override
+        public int compare(Integer i1, Integer i2) {
+            this.count++;
+            return i1.compareTo(i2);
+        }
+
+    }
+
+    /**
+     * Adds {@code n} random entries to a new machine, switches it to
+     * extraction mode, and returns the milliseconds and the comparisons per
+     * entry of the switch, separated by a tab.
+     *
+     * @param n
+     *            the number of entries
+     * @return the time and comparisons per entry of the switch
+     */
+    private static String measureSwitch(int n) {
+        CountingOrder order = new CountingOrder();
+        SortingMachine5a<Integer> m = new SortingMachine5a<>(order);
+        Random random = new Random(n);
+        for (int i = 0; i < n; i++) {
+            m.add(random.nextInt());
+        }
+
+        long start = System.nanoTime();
+        m.changeToExtractionMode();
+        long elapsed = System.nanoTime() - start;
+
+        assert m.size() == n;
+        return elapsed / 1_000_000 + "\t" + (double) elapsed / n + "\t"
+                + (double) order.count / n;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        // Runs once untimed so that the code is compiled before measuring
+        measureSwitch(SIZES[0]);
+
+        out.println("n\tms\tns/entry\tcompares/entry");
+        for (int n : SIZES) {
+            out.println(n + "\t" + measureSwitch(n));
+        }
+
+        out.close();
+    }
+
+}
@@ -0,0 +1,128 @@
+import java.util.Comparator;
+import java.util.Random;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Sorts long random strings that share a common prefix with a
+ * {@code SortingMachine5a}, once with ordinary and once with bottom-up
+ * sifting, and reports the comparisons per entry and the time of each. Every
+ * comparison has to read past the prefix, so it costs far more than a move,
+ * and bottom-up sifting's fewer comparisons show up in the time.
+ *
+ * @author Sean-Paul Billups and Michael Hu
+ *
+ */
+public final class HeapsortComparisonBenchmark {
+
+    /**
+     * Sizes of the machines measured.
+     */
+    private static final int[] SIZES = { 10_000, 100_000, 1_000_000 };
+
+    /**
+     * Length of the prefix every string starts with.
+     */
+    private static final int PREFIX_LENGTH = 64;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private HeapsortComparisonBenchmark() {
+    }
+
+    /**
+     * String order that counts the comparisons made.
+     */
+    private static final class CountingOrder implements Comparator<String> {
+
+        /**
+         * Number of comparisons made.
+         */
+        private long count;
+
+        @Override
+        public int compare(String s1, String s2) {
+            this.count++;
+            return s1.compareTo(s2);
+        }
+
+    }
+
+    /**
+     * Returns {@code n} random strings sharing a prefix of
+     * {@code PREFIX_LENGTH} characters.
+     *
+     * @param n
+     *            the number of strings
+     * @return the strings
+     */
+    private static String[] randomStrings(int n) {
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < PREFIX_LENGTH; i++) {
+            prefix.append('p');
+        }
+        Random random = new Random(n);
+        String[] strings = new String[n];
+        for (int i = 0; i < n; i++) {
+            strings[i] = prefix + Long.toString(random.nextLong(), Character.MAX_RADIX);
+        }
+        return strings;
+    }
+
+    /**
+     * Sorts {@code strings} with a new machine and returns the comparisons
+     * per entry and the milliseconds of the sort, separated by a tab.
+     *
+     * @param strings
+     *            the strings to sort
+     * @param bottomUp
+     *            whether the machine uses bottom-up sifting
+     * @return the comparisons per entry and the time of the sort
+     */
+    private static String measureSort(String[] strings, boolean bottomUp) {
+        CountingOrder order = new CountingOrder();
+        SortingMachine5a<String> m = new SortingMachine5a<>(order, bottomUp);
+
+        long start = System.nanoTime();
+        for (String s : strings) {
+            m.add(s);
+        }
+        m.changeToExtractionMode();
+        String previous = "";
+        while (m.size() > 0) {
+            String s = m.removeFirst();
+            assert previous.compareTo(s) <= 0;
+            previous = s;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return (double) order.count / strings.length + "\t" + elapsed / 1_000_000;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; unused here
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        // Runs once untimed so that the code is compiled before measuring
+        String[] warmUp = randomStrings(SIZES[1]);
+        measureSort(warmUp, false);
+        measureSort(warmUp, true);
+
+        out.println("n\tcompares/entry\tms\tbottom-up compares/entry\tms");
+        for (int n : SIZES) {
+            String[] strings = randomStrings(n);
+            out.println(n + "\t" + measureSort(strings, false) + "\t"
+                    + measureSort(strings, true));
+        }
+
+        out.close();
+    }
+
+}
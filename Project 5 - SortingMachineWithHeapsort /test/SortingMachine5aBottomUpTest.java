@@ -0,0 +1,22 @@
+import java.util.Comparator;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachine5a} with bottom-up
+ * sifting.
+ */
+public final class SortingMachine5aBottomUpTest extends SortingMachineTest {
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return new SortingMachine5a<String>(order, true);
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+}
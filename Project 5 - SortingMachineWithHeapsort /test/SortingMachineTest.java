@@ -264,6 +264,37 @@ public abstract class SortingMachineTest {
         assertEquals(root3, "orange");
         assertEquals(mExpected, m);
     }
+
+    /**
+     * Tests removeFirst until empty on a heap deep enough that entries sift
+     * through several levels, with duplicates and a last entry that has no
+     * sibling.
+     */
+    @Test
+    public final void testRemoveFirstAll() {
+        /*
+         * Set up variables
+         */
+        SortingMachine<String> m = this.createFromArgsTest(ORDER, false, "pear", "fig",
+                "kiwi", "apple", "plum", "date", "lime", "fig", "cherry", "banana",
+                "grape", "mango");
+        SortingMachine<String> mExpected = this.createFromArgsRef(ORDER, false);
+        StringBuilder removed = new StringBuilder();
+
+        /*
+         * Call method under test
+         */
+        while (m.size() > 0) {
+            removed.append(m.removeFirst()).append(' ');
+        }
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("apple banana cherry date fig fig grape kiwi lime mango pear plum ",
+                removed.toString());
+        assertEquals(mExpected, m);
+    }
     /*
      * Test cases for removeFirst. ------------------------- END ---------------
      */
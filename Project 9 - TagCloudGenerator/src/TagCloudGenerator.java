@@ -3,7 +3,6 @@ import java.util.Comparator;
 
 import components.map.Map;
 import components.map.Map.Pair;
-import components.map.Map1L;
 import components.simplereader.SimpleReader;
 import components.simplereader.SimpleReader1L;
 import components.simplewriter.SimpleWriter;
@@ -120,8 +119,8 @@ public final class TagCloudGenerator {
      */
     private static Map<String, Integer> createWordMap(String text) {
 
-        // Initializes an empty map
-        Map<String, Integer> words = new Map1L<>();
+        // Initializes an empty word counter
+        WordCountMap words = new WordCountMap();
 
         // Initializes an empty string
         String str = "";
@@ -135,20 +134,8 @@ public final class TagCloudGenerator {
 
             } else if (!str.isBlank()) {
 
-                str = str.toLowerCase();
-
-                // Adds the word to the map or increments its word count
-                if (!words.hasKey(str)) {
-
-                    // Adds the word to the map
-                    words.add(str, 1);
-
-                } else {
-
-                    // Increments the word count
-                    words.replaceValue(str, words.value(str) + 1);
-
-                }
+                // Adds the word with a count of 1 or increments its count
+                words.increment(str.toLowerCase());
 
                 // Clears the string
                 str = "";
@@ -156,7 +143,8 @@ public final class TagCloudGenerator {
             }
         }
 
-        return words;
+        // Copies the counts once, boxing each distinct word's count only here
+        return words.toMap();
     }
 
     /**
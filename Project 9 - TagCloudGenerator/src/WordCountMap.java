@@ -0,0 +1,230 @@
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Map from {@code String} words to {@code int} counts, represented as an
+ * open-addressing hash table (linear probing) over a {@code String[]} of words
+ * and an {@code int[]} of counts, so that counting never boxes an
+ * {@code Integer}.
+ *
+ * @convention <pre>
+ * |$this.words| = |$this.counts| = |$this.hashes|  and
+ * [|$this.words| is a power of 2]  and
+ * 0 <= $this.size < |$this.words|  and
+ * $this.size = [number of non-null entries in $this.words]  and
+ * [the non-null entries in $this.words are distinct]  and
+ * for all i: integer
+ *     where (0 <= i  and  i < |$this.words|  and  $this.words[i] /= null)
+ *   ($this.hashes[i] = [computed result of $this.words[i].hashCode()]  and
+ *    [every slot on the probe sequence of $this.words[i] before i is
+ *     non-null])
+ * </pre>
+ * @correspondence <pre>
+ * this = {(w, c): (string of character, integer)
+ *          where (there exists i: integer
+ *                  (0 <= i  and  i < |$this.words|  and
+ *                   $this.words[i] = w  and  $this.counts[i] = c))}
+ * </pre>
+ *
+ * @author Sean-Paul Billups & Michael Hu
+ *
+ */
+public final class WordCountMap {
+
+    /**
+     * Default number of slots; must be a power of 2.
+     */
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * Words, or {@code null} for empty slots.
+     */
+    private String[] words;
+
+    /**
+     * Counts of the words in the same slots.
+     */
+    private int[] counts;
+
+    /**
+     * Cached {@code hashCode} of the words in the same slots.
+     */
+    private int[] hashes;
+
+    /**
+     * Number of words in {@code this}.
+     */
+    private int size;
+
+    /**
+     * No-argument constructor.
+     */
+    public WordCountMap() {
+        this.words = new String[DEFAULT_CAPACITY];
+        this.counts = new int[DEFAULT_CAPACITY];
+        this.hashes = new int[DEFAULT_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Returns the slot holding {@code word}, or the empty slot where it would
+     * be put.
+     *
+     * @param word
+     *            the word to look for
+     * @param h
+     *            the hash code of {@code word}
+     * @return the slot for word
+     * @requires h = [computed result of word.hashCode()]
+     * @ensures <pre>
+     * if word is in DOMAIN(this) then
+     *   $this.words[slotFor] = word
+     * else
+     *   $this.words[slotFor] = null
+     * </pre>
+     */
+    private int slotFor(String word, int h) {
+        int mask = this.words.length - 1;
+
+        // Mixes the high bits in, since only the low bits pick the slot
+        int i = (h ^ (h >>> 16)) & mask;
+        while (this.words[i] != null
+                && (this.hashes[i] != h || !this.words[i].equals(word))) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Doubles the number of slots.
+     *
+     * @updates this
+     * @ensures this = #this  and  |$this.words| = 2 * |#$this.words|
+     */
+    private void grow() {
+        String[] oldWords = this.words;
+        int[] oldCounts = this.counts;
+        int[] oldHashes = this.hashes;
+
+        this.words = new String[2 * oldWords.length];
+        this.counts = new int[2 * oldWords.length];
+        this.hashes = new int[2 * oldWords.length];
+        for (int j = 0; j < oldWords.length; j++) {
+            if (oldWords[j] != null) {
+                int i = this.slotFor(oldWords[j], oldHashes[j]);
+                this.words[i] = oldWords[j];
+                this.counts[i] = oldCounts[j];
+                this.hashes[i] = oldHashes[j];
+            }
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the count of {@code word}, first adding
+     * {@code word} with count 0 if it is not in {@code this}.
+     *
+     * @param word
+     *            the word whose count changes
+     * @param delta
+     *            the amount to add
+     * @return the new count of word
+     * @updates this
+     * @ensures <pre>
+     * (word, addTo) is in this  and
+     * if word is in DOMAIN(#this) then
+     *   this = (#this \ {(word, #this(word))}) union
+     *            {(word, #this(word) + delta)}
+     * else
+     *   this = #this union {(word, delta)}
+     * </pre>
+     */
+    public int addTo(String word, int delta) {
+        assert word != null : "Violation of: word is not null";
+
+        int h = word.hashCode();
+        int i = this.slotFor(word, h);
+        if (this.words[i] == null) {
+            // Keeps the load factor at most 1/2 so probe runs stay short
+            if (2 * (this.size + 1) > this.words.length) {
+                this.grow();
+                i = this.slotFor(word, h);
+            }
+            this.words[i] = word;
+            this.hashes[i] = h;
+            this.size++;
+        }
+        this.counts[i] += delta;
+
+        return this.counts[i];
+    }
+
+    /**
+     * Adds 1 to the count of {@code word}, first adding {@code word} with
+     * count 0 if it is not in {@code this}.
+     *
+     * @param word
+     *            the word to count
+     * @return the new count of word
+     * @updates this
+     * @ensures this = [#this with word's count (0 if absent) increased by 1]
+     */
+    public int increment(String word) {
+        return this.addTo(word, 1);
+    }
+
+    /**
+     * Reports the count of {@code word}, or 0 if it is not in {@code this}.
+     *
+     * @param word
+     *            the word
+     * @return the count of word
+     * @ensures <pre>
+     * if word is in DOMAIN(this) then
+     *   (word, count) is in this
+     * else
+     *   count = 0
+     * </pre>
+     */
+    public int count(String word) {
+        assert word != null : "Violation of: word is not null";
+
+        int i = this.slotFor(word, word.hashCode());
+        int count = 0;
+        if (this.words[i] != null) {
+            count = this.counts[i];
+        }
+        return count;
+    }
+
+    /**
+     * Reports the number of words in {@code this}.
+     *
+     * @return the number of words
+     * @ensures size = |this|
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns a new {@code Map} with the same words and counts as
+     * {@code this}, for code that consumes {@code components.map.Map}. This
+     * is a copy, not a view: it boxes one {@code Integer} per distinct word
+     * and takes O(|this|) time, so it belongs after counting is done, never
+     * inside the counting loop. Later changes to {@code this} do not show in
+     * it, nor its changes in {@code this}.
+     *
+     * @return a copy of the words and their counts
+     * @ensures toMap = this
+     */
+    public Map<String, Integer> toMap() {
+        Map<String, Integer> map = new Map1L<>();
+        for (int i = 0; i < this.words.length; i++) {
+            if (this.words[i] != null) {
+                map.add(this.words[i], this.counts[i]);
+            }
+        }
+        return map;
+    }
+
+}
@@ -0,0 +1,189 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * JUnit test fixture for {@code WordCountMap}.
+ *
+ * @author Sean-Paul Billups & Michael Hu
+ *
+ */
+public class WordCountMapTest {
+
+    /**
+     * Tests increment on a new word and on a word already counted.
+     */
+    @Test
+    public final void testIncrement() {
+        /*
+         * Set up variables
+         */
+        WordCountMap m = new WordCountMap();
+
+        /*
+         * Call method under test
+         */
+        int first = m.increment("tag");
+        int second = m.increment("tag");
+        int other = m.increment("cloud");
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(1, first);
+        assertEquals(2, second);
+        assertEquals(1, other);
+        assertEquals(2, m.size());
+    }
+
+    /**
+     * Tests addTo with positive, zero, and negative amounts.
+     */
+    @Test
+    public final void testAddTo() {
+        /*
+         * Set up variables
+         */
+        final int five = 5;
+        WordCountMap m = new WordCountMap();
+
+        /*
+         * Call method under test
+         */
+        int added = m.addTo("tag", five);
+        int zero = m.addTo("cloud", 0);
+        int lowered = m.addTo("tag", -2);
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(five, added);
+        assertEquals(0, zero);
+        assertEquals(five - 2, lowered);
+        assertEquals(2, m.size());
+    }
+
+    /**
+     * Tests count on words present and absent; looking up an absent word
+     * does not add it.
+     */
+    @Test
+    public final void testCount() {
+        /*
+         * Set up variables
+         */
+        WordCountMap m = new WordCountMap();
+        m.increment("tag");
+        m.increment("tag");
+
+        /*
+         * Call method under test
+         */
+        int present = m.count("tag");
+        int absent = m.count("cloud");
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(2, present);
+        assertEquals(0, absent);
+        assertEquals(1, m.size());
+    }
+
+    /**
+     * Tests words whose hash codes are equal, which share a probe run.
+     */
+    @Test
+    public final void testCollidingWords() {
+        /*
+         * Set up variables; "Aa" and "BB" have the same hash code
+         */
+        WordCountMap m = new WordCountMap();
+
+        /*
+         * Call methods under test
+         */
+        m.increment("Aa");
+        m.increment("BB");
+        m.increment("BB");
+        m.increment("AaBB");
+        m.increment("BBAa");
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(1, m.count("Aa"));
+        assertEquals(2, m.count("BB"));
+        assertEquals(1, m.count("AaBB"));
+        assertEquals(1, m.count("BBAa"));
+        assertEquals(0, m.count("AaAa"));
+        assertEquals(4, m.size());
+    }
+
+    /**
+     * Tests counting many more words than the initial number of slots, so the
+     * table grows several times and keeps every count.
+     */
+    @Test
+    public final void testGrowth() {
+        /*
+         * Set up variables
+         */
+        final int words = 5_000;
+        final int repeats = 3;
+        WordCountMap m = new WordCountMap();
+
+        /*
+         * Call method under test
+         */
+        for (int r = 0; r < repeats; r++) {
+            for (int i = 0; i < words; i++) {
+                m.addTo("w" + i, i % repeats + 1);
+            }
+        }
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(words, m.size());
+        for (int i = 0; i < words; i++) {
+            assertEquals(repeats * (i % repeats + 1), m.count("w" + i));
+        }
+    }
+
+    /**
+     * Tests that toMap returns a copy with the same words and counts, which
+     * later increments do not change.
+     */
+    @Test
+    public final void testToMap() {
+        /*
+         * Set up variables
+         */
+        final int words = 100;
+        WordCountMap m = new WordCountMap();
+        Map<String, Integer> mExpected = new Map1L<>();
+        for (int i = 0; i < words; i++) {
+            m.addTo("w" + i, i + 1);
+            mExpected.add("w" + i, i + 1);
+        }
+
+        /*
+         * Call method under test
+         */
+        Map<String, Integer> copy = m.toMap();
+        m.increment("w0");
+        m.increment("new");
+
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(mExpected, copy);
+        assertEquals(2, m.count("w0"));
+        assertEquals(words + 1, m.size());
+    }
+
+}